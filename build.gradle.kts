@@ -1,5 +1,6 @@
 import java.time.LocalDate
 import java.time.format.DateTimeFormatter
+import org.jetbrains.intellij.platform.gradle.TestFrameworkType
 import org.jetbrains.kotlin.gradle.tasks.KotlinCompile
 
 plugins {
@@ -16,12 +17,24 @@ repositories {
     }
 }
 
+// JMH benchmarks for the plugin's pure-Java core; run with `./gradlew jmh [-PjmhArgs="..."]`
+val jmh: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+}
+
 dependencies {
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.37")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.37")
+
+    testImplementation("junit:junit:4.13.2")
+
     intellijPlatform {
 //        intellijIdeaUltimate("2024.3")
 //        plugins(providers.gradleProperty("platformPlugins").map { it.split(',') })
         phpstorm("2024.3")
         bundledPlugins(providers.gradleProperty("platformBundledPlugins").map { it.split(',') })
+        testFramework(TestFrameworkType.Platform)
         pluginVerifier()
         zipSigner()
         instrumentationTools()
@@ -65,6 +78,28 @@ tasks {
         untilBuild = providers.gradleProperty("pluginUntilBuild").orNull
     }
 
+    test {
+        systemProperty("java.awt.headless", "true")
+    }
+
+    register<JavaExec>("jmh") {
+        group = "verification"
+        description = "Runs the JMH benchmarks"
+        classpath = jmh.runtimeClasspath
+        mainClass = "org.openjdk.jmh.Main"
+        javaLauncher = javaToolchains.launcherFor(java.toolchain)
+
+        val jmhArgs = providers.gradleProperty("jmhArgs").map { it.split(' ').filter(String::isNotBlank) }.orElse(listOf())
+        val resultsFile = layout.buildDirectory.file("reports/jmh/results.json")
+        outputs.file(resultsFile)
+        argumentProviders.add(CommandLineArgumentProvider {
+            jmhArgs.get() + listOf("-rf", "json", "-rff", resultsFile.get().asFile.absolutePath)
+        })
+        doFirst {
+            resultsFile.get().asFile.parentFile.mkdirs()
+        }
+    }
+
     wrapper {
         gradleVersion = providers.gradleProperty("gradleVersion").get()
     }
@@ -0,0 +1,57 @@
+package com.adrianguenter.php_aliases;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AliasMappingDraftBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int size;
+
+    private List<AliasMappingDraft> drafts;
+    private boolean isEdited;
+
+    @Setup
+    public void setUp() {
+        var queue = SyntheticAliasMappings.detachedValidationQueue();
+        var mappings = SyntheticAliasMappings.generate(this.size, 0);
+
+        this.drafts = new ArrayList<>(mappings.size());
+        for (int i = 0; i < mappings.size(); i++) {
+            var draft = AliasMappingDraft.fromAliasMapping(mappings.get(i), i, queue);
+
+            // Every tenth FQN is unknown so the warning path is exercised too
+            draft.applyFqnValidationResult(draft.getFqn(), new FqnValidationQueue.Result(i % 10 != 0, null));
+            this.drafts.add(draft);
+        }
+    }
+
+    /// Re-validates every draft after an edit, as the table does when all rows are repainted
+    @Benchmark
+    public void validateAfterEdit(Blackhole blackhole) {
+        this.isEdited = !this.isEdited;
+
+        for (var draft : this.drafts) {
+            draft.setAlias(this.isEdited ? draft.getAlias() + "_" : draft.getAlias().substring(0, draft.getAlias().length() - 1));
+            blackhole.consume(draft.isStrictlyValid());
+        }
+    }
+
+    /// Validation results are cached until a draft changes
+    @Benchmark
+    public void validateUnchanged(Blackhole blackhole) {
+        for (var draft : this.drafts) {
+            blackhole.consume(draft.isStrictlyValid());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.adrianguenter.php_aliases;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AliasPrefixIndexBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int size;
+
+    /// From broad (most mappings match) to narrow (a single mapping matches)
+    @Param({"A", "Module1", "Alias12345"})
+    public String prefix;
+
+    private List<AliasMapping> mappings;
+    private AliasMappingsSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        this.mappings = SyntheticAliasMappings.generate(this.size, 0);
+        this.snapshot = AliasMappingsSnapshot.of(this.mappings);
+    }
+
+    /// Paid once per settings change
+    @Benchmark
+    public AliasMappingsSnapshot buildSnapshot() {
+        return AliasMappingsSnapshot.of(this.mappings);
+    }
+
+    /// Paid on every completion request
+    @Benchmark
+    public void find(Blackhole blackhole) {
+        for (var aliasMapping : this.snapshot.prefixIndex().find(this.prefix)) {
+            blackhole.consume(aliasMapping);
+        }
+    }
+}
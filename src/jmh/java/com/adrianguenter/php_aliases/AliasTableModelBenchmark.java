@@ -0,0 +1,48 @@
+package com.adrianguenter.php_aliases;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AliasTableModelBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int size;
+
+    private AliasTableModel tableModel;
+    private int editedRow;
+    private boolean isEdited;
+
+    @Setup
+    public void setUp() {
+        this.tableModel = new AliasTableModel(() -> {
+        }, SyntheticAliasMappings.detachedValidationQueue());
+        this.tableModel.setAliasMappings(SyntheticAliasMappings.generate(this.size, 0));
+        this.editedRow = this.size / 2;
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return this.tableModel.isValid();
+    }
+
+    @Benchmark
+    public boolean isModified() {
+        return this.tableModel.isModified();
+    }
+
+    /// What the settings dialog does on every keystroke in a cell
+    @Benchmark
+    public boolean isValidAfterEdit() {
+        this.isEdited = !this.isEdited;
+        this.tableModel.setValueAt(this.isEdited ? "Edited" : "Alias" + this.editedRow, this.editedRow, AliasTableModel.Column.Alias);
+
+        return this.tableModel.isValid() && this.tableModel.isModified();
+    }
+}
@@ -0,0 +1,39 @@
+package com.adrianguenter.php_aliases;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SettingsBenchmark {
+
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int size;
+
+    @Param({"0", "10"})
+    public int duplicatePercent;
+
+    private List<AliasMapping> mappings;
+
+    @Setup
+    public void setUp() {
+        this.mappings = SyntheticAliasMappings.generate(this.size, this.duplicatePercent);
+    }
+
+    /// Includes copying the input, since deduplication reassigns repeated UUIDs in place
+    @Benchmark
+    public List<AliasMapping> loadStateDeduplicate() {
+        return Settings.deduplicate(SyntheticAliasMappings.copy(this.mappings));
+    }
+
+    @Benchmark
+    public List<AliasMapping> copyOnly() {
+        return SyntheticAliasMappings.copy(this.mappings);
+    }
+}
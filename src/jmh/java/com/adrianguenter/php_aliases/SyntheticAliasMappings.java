@@ -0,0 +1,77 @@
+package com.adrianguenter.php_aliases;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/// Deterministic mapping sets shaped like a real project: a few vendors, nested modules and unique aliases
+final class SyntheticAliasMappings {
+
+    private static final long SEED = 0x5048_4141L;
+
+    private SyntheticAliasMappings() {
+    }
+
+    static List<AliasMapping> generate(
+            int size,
+            int duplicatePercent
+    ) {
+        var random = new Random(SEED);
+        var mappings = new ArrayList<AliasMapping>(size);
+
+        for (int i = 0; i < size; i++) {
+            if (i > 0 && random.nextInt(100) < duplicatePercent) {
+                // Half repeat an alias/FQN pair, half only reuse a UUID
+                var original = mappings.get(random.nextInt(mappings.size()));
+                mappings.add(random.nextBoolean()
+                        ? new AliasMapping(UUID.randomUUID(), original.alias, original.fullyQualifiedName, true)
+                        : new AliasMapping(original.uuid, "Alias" + i, fqn(random, i), true));
+                continue;
+            }
+
+            mappings.add(new AliasMapping(new UUID(SEED, i), "Alias" + i, fqn(random, i), true));
+        }
+
+        return mappings;
+    }
+
+    static List<AliasMapping> copy(
+            List<AliasMapping> mappings
+    ) {
+        var copies = new ArrayList<AliasMapping>(mappings.size());
+        for (var mapping : mappings) {
+            copies.add(new AliasMapping(mapping.uuid, mapping.alias, mapping.fullyQualifiedName, mapping.isActive));
+        }
+
+        return copies;
+    }
+
+    /// A queue that accepts requests but never validates, so no project or index is needed
+    static FqnValidationQueue detachedValidationQueue() {
+        return new FqnValidationQueue() {
+            @Override
+            public void setListener(@Nullable Listener listener) {
+            }
+
+            @Override
+            public void request(
+                    AliasMappingDraft draft,
+                    String fqn
+            ) {
+            }
+        };
+    }
+
+    private static String fqn(
+            Random random,
+            int i
+    ) {
+        return "\\Vendor" + random.nextInt(8)
+                + "\\Module" + random.nextInt(64)
+                + "\\Sub" + random.nextInt(16)
+                + "\\Class" + i;
+    }
+}
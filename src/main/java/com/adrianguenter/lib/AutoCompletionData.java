@@ -1,5 +1,8 @@
 package com.adrianguenter.lib;
 
+import com.intellij.icons.AllIcons;
+import com.jetbrains.php.PhpIcons;
+
 import javax.swing.*;
 
 public record AutoCompletionData(
@@ -9,5 +12,25 @@ public record AutoCompletionData(
         String typeText,
         String lookupString
 ) {
-}
+    public static AutoCompletionData forType(
+            FqnType type,
+            String fqn
+    ) {
+        var icon = switch (type) {
+            case Namespace -> PhpIcons.NAMESPACE;
+            case Class -> PhpIcons.CLASS;
+            case Exception -> PhpIcons.EXCEPTION;
+            case Enum -> AllIcons.Nodes.Enum;
+            case Interface -> PhpIcons.INTERFACE;
+            case Trait -> PhpIcons.TRAIT;
+        };
 
+        return new AutoCompletionData(
+                type,
+                icon,
+                null,
+                type.name(),
+                fqn.substring(1)
+        );
+    }
+}
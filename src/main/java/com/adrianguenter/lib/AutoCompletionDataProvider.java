@@ -1,40 +1,137 @@
 package com.adrianguenter.lib;
 
-import com.intellij.icons.AllIcons;
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.components.Service;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
-import com.jetbrains.php.PhpIcons;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.psi.elements.PhpClass;
 
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service(Service.Level.PROJECT)
 public final class AutoCompletionDataProvider {
 
+    /// Whether a class extends \Exception, and the files of the class and its superclasses that decide it
+    private record SuperclassChain(boolean extendsException, List<VirtualFile> files) {
+    }
+
     private final PhpIndex phpIndex;
+    private final FqnTypeCache fqnTypeCache;
+    private final Metrics metrics;
+    private final CachedValue<Map<String, Optional<AutoCompletionData>>> cache;
 
     public AutoCompletionDataProvider(
             Project project
     ) {
         this.phpIndex = PhpIndex.getInstance(project);
+        this.fqnTypeCache = project.getService(FqnTypeCache.class);
+        this.metrics = project.getService(Metrics.class);
+
+        // Dropped whenever PHP stubs change or indexing finishes; class kinds and superclasses are part of the stubs, so
+        // typing inside a method body keeps the cache
+        var phpStubModificationTracker = NamespaceIndexProvider.getPhpStubModificationTracker(project);
+        this.cache = CachedValuesManager.getManager(project).createCachedValue(
+                () -> CachedValueProvider.Result.create(
+                        new ConcurrentHashMap<>(),
+                        phpStubModificationTracker,
+                        DumbService.getInstance(project).getModificationTracker()
+                ),
+                false
+        );
     }
 
     public Optional<AutoCompletionData> forFqn(
             String fqn
     ) {
-        var unprefixedFqn = fqn.substring(1);
+        var cache = this.cache.getValue();
+
+        var data = cache.get(fqn);
+        if (data == null) {
+            this.metrics.increment("dataProvider.cacheMisses");
+            data = this.compute(fqn, new HashMap<>());
+            cache.putIfAbsent(fqn, data);
+        } else {
+            this.metrics.increment("dataProvider.cacheHits");
+        }
+
+        return data;
+    }
+
+    /// Classifies many FQNs in one read action, spread across cores and sharing superclass chain lookups
+    public Map<String, Optional<AutoCompletionData>> forFqns(
+            Collection<String> fqns
+    ) {
+        var cache = this.cache.getValue();
+        var results = new ConcurrentHashMap<String, Optional<AutoCompletionData>>();
+        var misses = new ArrayList<String>();
+
+        for (var fqn : new LinkedHashSet<>(fqns)) {
+            var data = cache.get(fqn);
+            if (data != null) {
+                this.metrics.increment("dataProvider.cacheHits");
+                results.put(fqn, data);
+            } else {
+                this.metrics.increment("dataProvider.cacheMisses");
+                misses.add(fqn);
+            }
+        }
+
+        if (misses.isEmpty()) {
+            return results;
+        }
+
+        var superclassChainsByFqn = new ConcurrentHashMap<String, SuperclassChain>();
+
+        // Workers inherit read access from the calling thread
+        ReadAction.run(() -> {
+            var isCompleted = JobLauncher.getInstance().invokeConcurrentlyUnderProgress(
+                    misses,
+                    ProgressManager.getInstance().getProgressIndicator(),
+                    fqn -> {
+                        var data = this.compute(fqn, superclassChainsByFqn);
+                        results.put(fqn, data);
+                        cache.putIfAbsent(fqn, data);
+
+                        return true;
+                    }
+            );
+
+            if (!isCompleted) {
+                ProgressManager.checkCanceled();
+                throw new ProcessCanceledException();
+            }
+        });
+
+        return results;
+    }
+
+    private Optional<AutoCompletionData> compute(
+            String fqn,
+            Map<String, SuperclassChain> superclassChainsByFqn
+    ) {
+        ProgressManager.checkCanceled();
+
+        var persistedType = this.fqnTypeCache.lookup(fqn);
+        if (persistedType != null) {
+            return Optional.of(AutoCompletionData.forType(persistedType, fqn));
+        }
 
         var maybePhpClass = this.phpIndex.getAnyByFQN(fqn).stream().findFirst();
         if (maybePhpClass.isEmpty()) {
             var maybePhpNamespace = this.phpIndex.getNamespacesByName(fqn).stream().findFirst();
             if (maybePhpNamespace.isPresent()) {
-                return Optional.of(new AutoCompletionData(
-                        FqnType.Namespace,
-                        PhpIcons.NAMESPACE,
-                        null,
-                        "Namespace",
-                        unprefixedFqn
-                ));
+                this.fqnTypeCache.record(fqn, FqnType.Namespace, List.of());
+
+                return Optional.of(AutoCompletionData.forType(FqnType.Namespace, fqn));
             }
 
             return Optional.empty();
@@ -42,51 +139,78 @@ public final class AutoCompletionDataProvider {
 
         var phpClass = maybePhpClass.get();
 
+        FqnType type;
+        List<VirtualFile> files;
         if (phpClass.isInterface()) {
-            return Optional.of(new AutoCompletionData(
-                    FqnType.Interface,
-                    PhpIcons.INTERFACE,
-                    null,
-                    "Interface",
-                    unprefixedFqn
-            ));
+            type = FqnType.Interface;
+            files = getDeclaringFiles(phpClass);
         } else if (phpClass.isTrait()) {
-            return Optional.of(new AutoCompletionData(
-                    FqnType.Trait,
-                    PhpIcons.TRAIT,
-                    null,
-                    "Trait",
-                    unprefixedFqn
-            ));
+            type = FqnType.Trait;
+            files = getDeclaringFiles(phpClass);
         } else if (phpClass.isEnum()) {
-            return Optional.of(new AutoCompletionData(
-                    FqnType.Enum,
-                    AllIcons.Nodes.Enum,
-                    null,
-                    "Enum",
-                    unprefixedFqn
-            ));
+            type = FqnType.Enum;
+            files = getDeclaringFiles(phpClass);
         } else {
-            var currentClass = phpClass;
-            do {
-                if ("\\Exception".equals(currentClass.getFQN())) {
-                    return Optional.of(new AutoCompletionData(
-                            FqnType.Exception,
-                            PhpIcons.EXCEPTION,
-                            null,
-                            "Exception",
-                            unprefixedFqn
-                    ));
-                }
-            } while ((currentClass = currentClass.getSuperClass()) != null);
-
-            return Optional.of(new AutoCompletionData(
-                    FqnType.Class,
-                    PhpIcons.CLASS,
-                    null,
-                    "Class",
-                    unprefixedFqn
-            ));
+            var superclassChain = this.getSuperclassChain(phpClass, superclassChainsByFqn);
+            type = superclassChain.extendsException() ? FqnType.Exception : FqnType.Class;
+            files = superclassChain.files();
+        }
+
+        this.fqnTypeCache.record(fqn, type, files);
+
+        return Optional.of(AutoCompletionData.forType(type, fqn));
+    }
+
+    private SuperclassChain getSuperclassChain(
+            PhpClass phpClass,
+            Map<String, SuperclassChain> superclassChainsByFqn
+    ) {
+        var chain = new ArrayList<PhpClass>();
+        var visitedFqns = new HashSet<String>();
+        var tail = new SuperclassChain(false, List.of());
+
+        for (var currentClass = phpClass; currentClass != null; currentClass = currentClass.getSuperClass()) {
+            var currentFqn = currentClass.getFQN();
+
+            var known = superclassChainsByFqn.get(currentFqn);
+            if (known != null) {
+                tail = known;
+                break;
+            }
+
+            if (!visitedFqns.add(currentFqn)) {
+                // Cyclic hierarchy
+                break;
+            }
+
+            chain.add(currentClass);
+
+            if ("\\Exception".equals(currentFqn)) {
+                tail = new SuperclassChain(true, List.of());
+                break;
+            }
+        }
+
+        // Built from the top down, so every class in the chain is remembered with the files above it
+        for (int i = chain.size() - 1; i >= 0; i--) {
+            var currentClass = chain.get(i);
+            var files = new ArrayList<VirtualFile>(tail.files().size() + 1);
+            files.addAll(getDeclaringFiles(currentClass));
+            files.addAll(tail.files());
+
+            tail = new SuperclassChain(tail.extendsException(), List.copyOf(files));
+            superclassChainsByFqn.put(currentClass.getFQN(), tail);
         }
+
+        return tail;
+    }
+
+    private static List<VirtualFile> getDeclaringFiles(
+            PhpClass phpClass
+    ) {
+        var containingFile = phpClass.getContainingFile();
+        var file = containingFile != null ? containingFile.getVirtualFile() : null;
+
+        return file != null ? List.of(file) : List.of();
     }
 }
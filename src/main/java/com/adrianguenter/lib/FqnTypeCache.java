@@ -0,0 +1,232 @@
+package com.adrianguenter.lib;
+
+import com.intellij.ide.plugins.PluginManagerCore;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationInfo;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.extensions.PluginId;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/// FQN classifications persisted in the project's system directory, so warm starts don't need the PHP index.
+///
+/// Each entry remembers the timestamps of the files declaring the class and its superclasses, since those decide
+/// whether it is an exception; an entry is only trusted while all of them are unchanged on disk, and only until PHP
+/// stubs change in the current session, which also covers unsaved edits to declarations. Only FQNs of the current mappings are kept.
+@Service(Service.Level.PROJECT)
+public final class FqnTypeCache
+        implements Disposable {
+
+    private record FileStamp(String url, long timeStamp) {
+    }
+
+    private record Entry(FqnType type, List<FileStamp> files) {
+    }
+
+    private static final Logger LOG = Logger.getInstance(FqnTypeCache.class);
+    private static final int MAGIC = 0x50484141;
+    private static final int FORMAT_VERSION = 2;
+
+    private final Path path;
+    private final ModificationTracker phpModificationTracker;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private volatile Set<String> persistedFqns = Set.of();
+    private volatile boolean isLoaded;
+    private volatile boolean isDirty;
+    private volatile long loadedModificationCount = -1;
+
+    public FqnTypeCache(
+            Project project
+    ) {
+        this.path = PathManager.getSystemDir()
+                .resolve("php_aliases")
+                .resolve(project.getLocationHash() + ".fqn-types");
+        this.phpModificationTracker = NamespaceIndexProvider.getPhpStubModificationTracker(project);
+    }
+
+    /// The persisted type of the FQN, or null if it has to be resolved through the index
+    public @Nullable FqnType lookup(
+            String fqn
+    ) {
+        this.ensureLoaded();
+
+        if (this.phpModificationTracker.getModificationCount() != this.loadedModificationCount) {
+            // PHP declarations changed since loading; the index is authoritative from here on
+            return null;
+        }
+
+        var entry = this.entries.get(fqn);
+        if (entry == null || entry.files().isEmpty()) {
+            return null;
+        }
+
+        for (var fileStamp : entry.files()) {
+            var file = VirtualFileManager.getInstance().findFileByUrl(fileStamp.url());
+            if (file == null || !file.isValid() || file.getTimeStamp() != fileStamp.timeStamp()) {
+                return null;
+            }
+        }
+
+        return entry.type();
+    }
+
+    /// Records the type of a mapped FQN along with the files its classification depends on; other FQNs are ignored
+    public void record(
+            String fqn,
+            FqnType type,
+            Collection<VirtualFile> files
+    ) {
+        this.ensureLoaded();
+
+        if (!this.persistedFqns.contains(fqn)) {
+            return;
+        }
+
+        var fileStamps = new ArrayList<FileStamp>(files.size());
+        for (var file : files) {
+            fileStamps.add(new FileStamp(file.getUrl(), file.getTimeStamp()));
+        }
+
+        var entry = new Entry(type, List.copyOf(fileStamps));
+        if (!entry.equals(this.entries.put(fqn, entry))) {
+            this.isDirty = true;
+        }
+    }
+
+    /// Limits the cache to the given FQNs, dropping entries for everything else
+    public synchronized void setPersistedFqns(
+            Set<String> fqns
+    ) {
+        this.ensureLoaded();
+
+        this.persistedFqns = Set.copyOf(fqns);
+        if (this.entries.keySet().retainAll(this.persistedFqns)) {
+            this.isDirty = true;
+        }
+    }
+
+    public synchronized void save() {
+        if (!this.isDirty) {
+            return;
+        }
+
+        // Cleared before copying, so records made while writing mark the cache dirty again
+        this.isDirty = false;
+        var entriesToWrite = Map.copyOf(this.entries);
+
+        try {
+            Files.createDirectories(this.path.getParent());
+
+            var temporaryPath = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+            try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeLong(getFingerprint());
+                output.writeInt(entriesToWrite.size());
+
+                for (var mapEntry : entriesToWrite.entrySet()) {
+                    writeString(output, mapEntry.getKey());
+                    output.writeByte(mapEntry.getValue().type().ordinal());
+                    output.writeInt(mapEntry.getValue().files().size());
+                    for (var fileStamp : mapEntry.getValue().files()) {
+                        writeString(output, fileStamp.url());
+                        output.writeLong(fileStamp.timeStamp());
+                    }
+                }
+            }
+
+            Files.move(temporaryPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            this.isDirty = true;
+            LOG.warn("Could not write the FQN type cache to " + this.path, e);
+        }
+    }
+
+    @Override
+    public void dispose() {
+        this.save();
+    }
+
+    private synchronized void ensureLoaded() {
+        if (this.isLoaded) {
+            return;
+        }
+
+        this.loadedModificationCount = this.phpModificationTracker.getModificationCount();
+        this.isLoaded = true;
+
+        if (!Files.isRegularFile(this.path)) {
+            return;
+        }
+
+        try {
+            // Read into the heap rather than mapped, so the file isn't held open and can be replaced on save
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(this.path));
+
+            if (buffer.getInt() != MAGIC
+                    || buffer.getInt() != FORMAT_VERSION
+                    || buffer.getLong() != getFingerprint()) {
+                // Written by another format, IDE build or PHP plugin; rebuilt from the index as needed
+                return;
+            }
+
+            var types = FqnType.values();
+            var count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                var fqn = readString(buffer);
+                var type = types[buffer.get()];
+                var fileCount = buffer.getInt();
+                var fileStamps = new ArrayList<FileStamp>(fileCount);
+                for (int j = 0; j < fileCount; j++) {
+                    fileStamps.add(new FileStamp(readString(buffer), buffer.getLong()));
+                }
+
+                this.entries.put(fqn, new Entry(type, List.copyOf(fileStamps)));
+            }
+        } catch (IOException | RuntimeException e) {
+            LOG.info("Ignoring unreadable FQN type cache " + this.path, e);
+            this.entries.clear();
+        }
+    }
+
+    private static long getFingerprint() {
+        var phpPlugin = PluginManagerCore.getPlugin(PluginId.getId("com.jetbrains.php"));
+
+        return Objects.hash(
+                ApplicationInfo.getInstance().getBuild().asString(),
+                phpPlugin != null ? phpPlugin.getVersion() : null
+        );
+    }
+
+    private static void writeString(
+            DataOutputStream output,
+            String value
+    ) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(
+            ByteBuffer buffer
+    ) {
+        var bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,160 @@
+package com.adrianguenter.lib;
+
+import com.intellij.openapi.components.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/// In-memory counters and latency histograms for the current session.
+///
+/// Latencies go into power-of-two microsecond buckets, so recording is lock-free and percentiles are
+/// reported as the upper bound of the bucket they fall in.
+@Service(Service.Level.PROJECT)
+public final class Metrics {
+
+    private static final int BUCKET_COUNT = 32;
+
+    public record HistogramSnapshot(long count, long totalNanos, long maxNanos, long[] buckets) {
+
+        public double meanMillis() {
+            return this.count == 0 ? 0 : this.totalNanos / (double) this.count / 1_000_000;
+        }
+
+        public double maxMillis() {
+            return this.maxNanos / 1_000_000.0;
+        }
+
+        /// Upper bound of the bucket holding the given percentile (0-100)
+        public double percentileMillis(double percentile) {
+            if (this.count == 0) {
+                return 0;
+            }
+
+            var rank = (long) Math.ceil(this.count * percentile / 100);
+            var seen = 0L;
+            for (int i = 0; i < this.buckets.length; i++) {
+                seen += this.buckets[i];
+                if (seen >= Math.max(rank, 1)) {
+                    return Math.min(getBucketUpperBoundMicros(i) / 1000.0, this.maxMillis());
+                }
+            }
+
+            return this.maxMillis();
+        }
+    }
+
+    private static final class Histogram {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+        void record(long nanos) {
+            this.count.increment();
+            this.totalNanos.add(nanos);
+            this.maxNanos.accumulateAndGet(nanos, Math::max);
+            this.buckets.incrementAndGet(getBucket(nanos));
+        }
+
+        HistogramSnapshot snapshot() {
+            var buckets = new long[BUCKET_COUNT];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                buckets[i] = this.buckets.get(i);
+            }
+
+            return new HistogramSnapshot(this.count.sum(), this.totalNanos.sum(), this.maxNanos.get(), buckets);
+        }
+    }
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public void increment(
+            String name
+    ) {
+        this.counters.computeIfAbsent(name, k -> new LongAdder()).increment();
+    }
+
+    public void recordSince(
+            String name,
+            long startNanos
+    ) {
+        this.histograms.computeIfAbsent(name, k -> new Histogram()).record(System.nanoTime() - startNanos);
+    }
+
+    public Map<String, Long> getCounters() {
+        var counters = new TreeMap<String, Long>();
+        this.counters.forEach((name, counter) -> counters.put(name, counter.sum()));
+
+        return counters;
+    }
+
+    public Map<String, HistogramSnapshot> getHistograms() {
+        var histograms = new TreeMap<String, HistogramSnapshot>();
+        this.histograms.forEach((name, histogram) -> histograms.put(name, histogram.snapshot()));
+
+        return histograms;
+    }
+
+    public void reset() {
+        this.counters.clear();
+        this.histograms.clear();
+    }
+
+    public String toJson() {
+        var json = new StringBuilder("{\n  \"counters\": {");
+
+        var separator = "\n";
+        for (var entry : this.getCounters().entrySet()) {
+            json.append(separator).append("    ").append(quote(entry.getKey())).append(": ").append(entry.getValue());
+            separator = ",\n";
+        }
+
+        json.append("\n  },\n  \"histograms\": {");
+
+        separator = "\n";
+        for (var entry : this.getHistograms().entrySet()) {
+            var histogram = entry.getValue();
+
+            json.append(separator).append("    ").append(quote(entry.getKey())).append(": {")
+                    .append("\"count\": ").append(histogram.count())
+                    .append(", \"totalNanos\": ").append(histogram.totalNanos())
+                    .append(", \"maxNanos\": ").append(histogram.maxNanos())
+                    .append(", \"bucketUpperBoundsMicros\": {");
+
+            var bucketSeparator = "";
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (histogram.buckets()[i] != 0) {
+                    json.append(bucketSeparator)
+                            .append('"').append(getBucketUpperBoundMicros(i)).append("\": ")
+                            .append(histogram.buckets()[i]);
+                    bucketSeparator = ", ";
+                }
+            }
+
+            json.append("}}");
+            separator = ",\n";
+        }
+
+        return json.append("\n  }\n}\n").toString();
+    }
+
+    private static int getBucket(long nanos) {
+        var micros = nanos / 1000;
+
+        return Math.min(BUCKET_COUNT - 1, micros <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(micros - 1));
+    }
+
+    private static long getBucketUpperBoundMicros(int bucket) {
+        return 1L << bucket;
+    }
+
+    private static String quote(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
@@ -0,0 +1,110 @@
+package com.adrianguenter.lib;
+
+import com.intellij.lang.LanguageParserDefinitions;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.stubs.StubIndex;
+import com.intellij.psi.tree.IStubFileElementType;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.PhpIndexImpl;
+import com.jetbrains.php.lang.PhpLanguage;
+
+import java.util.*;
+
+@Service(Service.Level.PROJECT)
+public final class NamespaceIndexProvider {
+
+    public static final class NamespaceIndex {
+
+        private final Set<String> fqns;
+        private final PrefixIndex<String> prefixIndex;
+
+        private NamespaceIndex(
+                Set<String> fqns
+        ) {
+            this.fqns = fqns;
+            this.prefixIndex = PrefixIndex.build(fqns, NamespaceIndex::getPrefixKeys);
+        }
+
+        public boolean contains(
+                String fqn
+        ) {
+            return this.fqns.contains(fqn);
+        }
+
+        /// Namespaces with a segment-aligned part starting with the prefix, e.g. "Bar\B" matches \Foo\Bar\Baz
+        public Collection<String> find(
+                String prefix
+        ) {
+            return this.prefixIndex.find(prefix.replaceFirst("^\\\\+", ""));
+        }
+
+        private static List<String> getPrefixKeys(String fqn) {
+            var keys = new ArrayList<String>();
+            var unprefixedFqn = fqn.replaceFirst("^\\\\+", "");
+
+            keys.add(unprefixedFqn);
+            for (int i = unprefixedFqn.indexOf('\\'); i != -1; i = unprefixedFqn.indexOf('\\', i + 1)) {
+                keys.add(unprefixedFqn.substring(i + 1));
+            }
+
+            return keys;
+        }
+    }
+
+    private final PhpIndexImpl phpIndex;
+    private final CachedValue<NamespaceIndex> cache;
+
+    public NamespaceIndexProvider(
+            Project project
+    ) {
+        this.phpIndex = (PhpIndexImpl) PhpIndex.getInstance(project);
+
+        // Rebuilt once per index generation, not on every PHP edit
+        var phpIndexModificationTracker = getPhpStubModificationTracker(project);
+        this.cache = CachedValuesManager.getManager(project).createCachedValue(
+                () -> CachedValueProvider.Result.create(
+                        this.build(),
+                        phpIndexModificationTracker,
+                        DumbService.getInstance(project).getModificationTracker()
+                ),
+                false
+        );
+    }
+
+    /// Changes when the stubs of PHP files change, which edits inside function bodies and the like don't cause
+    public static ModificationTracker getPhpStubModificationTracker(
+            Project project
+    ) {
+        var parserDefinition = LanguageParserDefinitions.INSTANCE.forLanguage(PhpLanguage.INSTANCE);
+        if (parserDefinition != null && parserDefinition.getFileNodeType() instanceof IStubFileElementType<?> fileElementType) {
+            return StubIndex.getInstance().getPerFileElementTypeModificationTracker(fileElementType);
+        }
+
+        return PsiModificationTracker.getInstance(project).forLanguage(PhpLanguage.INSTANCE);
+    }
+
+    public NamespaceIndex getIndex() {
+        return this.cache.getValue();
+    }
+
+    private NamespaceIndex build() {
+        var fqns = new HashSet<String>();
+        for (var fqn : this.phpIndex.getAllChildNamespacesFqns("\\")) {
+            ProgressManager.checkCanceled();
+
+            if (!fqn.isEmpty() && !this.phpIndex.getNamespacesByName(fqn).isEmpty()) {
+                fqns.add(fqn);
+            }
+        }
+
+        return new NamespaceIndex(Set.copyOf(fqns));
+    }
+}
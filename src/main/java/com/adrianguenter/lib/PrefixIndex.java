@@ -0,0 +1,133 @@
+package com.adrianguenter.lib;
+
+import java.util.*;
+import java.util.function.Function;
+
+/// Immutable, case-insensitive prefix index backed by a sorted key array.
+///
+/// Lookups binary-search the first key that can match and then walk forward
+/// only over the matching run, so a query costs O(log n + k).
+public final class PrefixIndex<T> {
+
+    private static final PrefixIndex<?> EMPTY = new PrefixIndex<>(new String[0], new Object[0]);
+
+    private final String[] keys;
+    private final Object[] values;
+
+    private PrefixIndex(
+            String[] keys,
+            Object[] values
+    ) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PrefixIndex<T> empty() {
+        return (PrefixIndex<T>) EMPTY;
+    }
+
+    public static <T> PrefixIndex<T> build(
+            Collection<T> items,
+            Function<T, ? extends Collection<String>> keysExtractor
+    ) {
+        var entries = new ArrayList<Map.Entry<String, T>>();
+        for (var item : items) {
+            for (var key : keysExtractor.apply(item)) {
+                if (key != null && !key.isEmpty()) {
+                    entries.add(Map.entry(key.toLowerCase(Locale.ROOT), item));
+                }
+            }
+        }
+
+        if (entries.isEmpty()) {
+            return empty();
+        }
+
+        entries.sort(Map.Entry.comparingByKey());
+
+        var keys = new String[entries.size()];
+        var values = new Object[entries.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = entries.get(i).getKey();
+            values[i] = entries.get(i).getValue();
+        }
+
+        return new PrefixIndex<>(keys, values);
+    }
+
+    /// Drops the removed items (by identity) and merges in the added ones without re-sorting the existing keys
+    public PrefixIndex<T> withChanges(
+            Collection<T> removedItems,
+            Collection<T> addedItems,
+            Function<T, ? extends Collection<String>> keysExtractor
+    ) {
+        var removed = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        removed.addAll(removedItems);
+        var added = build(addedItems, keysExtractor);
+
+        var keys = new ArrayList<String>(this.keys.length + added.keys.length);
+        var values = new ArrayList<>(this.values.length + added.values.length);
+
+        int i = 0;
+        int j = 0;
+        while (i < this.keys.length || j < added.keys.length) {
+            if (i < this.keys.length && removed.contains(this.values[i])) {
+                ++i;
+            } else if (j >= added.keys.length || (i < this.keys.length && this.keys[i].compareTo(added.keys[j]) <= 0)) {
+                keys.add(this.keys[i]);
+                values.add(this.values[i++]);
+            } else {
+                keys.add(added.keys[j]);
+                values.add(added.values[j++]);
+            }
+        }
+
+        if (keys.isEmpty()) {
+            return empty();
+        }
+
+        return new PrefixIndex<>(keys.toArray(String[]::new), values.toArray());
+    }
+
+    public int size() {
+        return this.keys.length;
+    }
+
+    /// Returns every distinct item with at least one key starting with the given prefix, in key order
+    @SuppressWarnings("unchecked")
+    public Collection<T> find(
+            String prefix
+    ) {
+        var normalizedPrefix = prefix.toLowerCase(Locale.ROOT);
+        var matches = new LinkedHashSet<T>();
+
+        for (int i = this.lowerBound(normalizedPrefix); i < this.keys.length; i++) {
+            if (!this.keys[i].startsWith(normalizedPrefix)) {
+                break;
+            }
+
+            matches.add((T) this.values[i]);
+        }
+
+        return matches;
+    }
+
+    private int lowerBound(
+            String key
+    ) {
+        int low = 0;
+        int high = this.keys.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+}
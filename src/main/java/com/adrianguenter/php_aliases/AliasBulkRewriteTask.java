@@ -0,0 +1,158 @@
+package com.adrianguenter.php_aliases;
+
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/// Project-wide rewrite: finds candidate files through an index, filters them in parallel read actions and
+/// rewrites them in bounded write commands so the IDE stays responsive and the task can be cancelled between chunks
+abstract class AliasBulkRewriteTask
+        extends Task.Backgroundable {
+
+    private static final int FILES_PER_READ_CHUNK = 200;
+    private static final int FILES_PER_WRITE_CHUNK = 20;
+
+    private final String commandName;
+
+    AliasBulkRewriteTask(
+            Project project,
+            String title
+    ) {
+        super(project, title, true);
+
+        this.commandName = title;
+    }
+
+    /// Runs in a smart-mode read action
+    protected abstract Collection<VirtualFile> findCandidateFiles();
+
+    /// Runs in a read action, concurrently for different files
+    protected abstract boolean needsRewrite(PsiFile file);
+
+    /// Runs inside a write command
+    protected abstract void rewrite(PsiFile file);
+
+    @Override
+    public void run(@NotNull ProgressIndicator indicator) {
+        var project = Objects.requireNonNull(this.getProject());
+
+        indicator.setIndeterminate(true);
+        indicator.setText("Finding candidate files");
+
+        var candidates = new ArrayList<>(ReadAction.nonBlocking(this::findCandidateFiles)
+                .inSmartMode(project)
+                .wrapProgress(indicator)
+                .executeSynchronously());
+
+        indicator.setIndeterminate(false);
+        indicator.setText("Scanning imports");
+
+        var files = new ArrayList<VirtualFile>();
+        for (int i = 0; i < candidates.size(); i += FILES_PER_READ_CHUNK) {
+            var chunk = candidates.subList(i, Math.min(i + FILES_PER_READ_CHUNK, candidates.size()));
+
+            // Short read actions, restarted if a write action needs the lock
+            files.addAll(ReadAction.nonBlocking(() -> this.filterChunk(project, chunk))
+                    .inSmartMode(project)
+                    .wrapProgress(indicator)
+                    .executeSynchronously());
+
+            indicator.setFraction(0.5 * (i + chunk.size()) / candidates.size());
+        }
+
+        indicator.setText("Rewriting files");
+
+        for (int i = 0; i < files.size(); i += FILES_PER_WRITE_CHUNK) {
+            indicator.checkCanceled();
+
+            var chunk = files.subList(i, Math.min(i + FILES_PER_WRITE_CHUNK, files.size()));
+
+            // Rewrites consult the PHP index; indexing may start again before the write runs, so retry until it ran smart
+            var isRewritten = new AtomicBoolean();
+            while (!isRewritten.get()) {
+                indicator.checkCanceled();
+                DumbService.getInstance(project).waitForSmartMode();
+                ApplicationManager.getApplication().invokeAndWait(
+                        () -> isRewritten.set(this.rewriteChunk(project, chunk)),
+                        ModalityState.defaultModalityState()
+                );
+            }
+
+            indicator.setFraction(0.5 + 0.5 * (i + chunk.size()) / files.size());
+        }
+    }
+
+    private List<VirtualFile> filterChunk(
+            Project project,
+            List<VirtualFile> chunk
+    ) {
+        var psiManager = PsiManager.getInstance(project);
+        var files = new ConcurrentLinkedQueue<VirtualFile>();
+
+        var isCompleted = JobLauncher.getInstance().invokeConcurrentlyUnderProgress(
+                chunk,
+                ProgressManager.getInstance().getProgressIndicator(),
+                file -> {
+                    var psiFile = file.isValid() ? psiManager.findFile(file) : null;
+                    if (psiFile != null && this.needsRewrite(psiFile)) {
+                        files.add(file);
+                    }
+
+                    return true;
+                }
+        );
+
+        if (!isCompleted) {
+            throw new ProcessCanceledException();
+        }
+
+        return new ArrayList<>(files);
+    }
+
+    /// Returns false without writing if indexing is in progress
+    private boolean rewriteChunk(
+            Project project,
+            List<VirtualFile> chunk
+    ) {
+        if (project.isDisposed()) {
+            return true;
+        }
+
+        if (DumbService.isDumb(project)) {
+            return false;
+        }
+
+        var psiManager = PsiManager.getInstance(project);
+        var psiFiles = chunk.stream()
+                .filter(VirtualFile::isValid)
+                .map(psiManager::findFile)
+                .filter(Objects::nonNull)
+                .toArray(PsiFile[]::new);
+
+        WriteCommandAction.runWriteCommandAction(project, this.commandName, null, () -> {
+            for (var psiFile : psiFiles) {
+                if (psiFile.isValid()) {
+                    this.rewrite(psiFile);
+                }
+            }
+        }, psiFiles);
+
+        return true;
+    }
+}
@@ -1,19 +1,15 @@
 package com.adrianguenter.php_aliases;
 
+import com.adrianguenter.lib.Metrics;
 import com.intellij.codeInsight.completion.*;
 import com.intellij.codeInsight.lookup.LookupElementBuilder;
 import com.intellij.icons.AllIcons;
 import com.intellij.patterns.PlatformPatterns;
-import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.ProcessingContext;
 import com.jetbrains.php.lang.PhpLanguage;
-import com.jetbrains.php.lang.psi.PhpFile;
-import com.jetbrains.php.lang.psi.elements.PhpNamespace;
-import com.jetbrains.php.lang.psi.elements.PhpPsiElement;
-import com.jetbrains.php.lang.psi.elements.PhpUse;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Objects;
+import java.util.LinkedHashSet;
 
 public class AliasCompletionContributor
         extends CompletionContributor {
@@ -29,56 +25,64 @@ public class AliasCompletionContributor
                             @NotNull ProcessingContext context,
                             @NotNull CompletionResultSet resultSet
                     ) {
-                        var settingsService = parameters.getOriginalFile().getProject().getService(Settings.class);
-                        var state = Objects.requireNonNull(settingsService.getState());
-                        var phpFile = (PhpFile) parameters.getOriginalFile();
-                        var elementContext = parameters.getOriginalPosition();
-                        var namespace = PsiTreeUtil.getParentOfType(elementContext, PhpNamespace.class);
+                        var project = parameters.getOriginalFile().getProject();
+                        var metrics = project.getService(Metrics.class);
+                        var startNanos = System.nanoTime();
 
-                        var currentPrefix = resultSet.getPrefixMatcher().getPrefix();
-                        if (currentPrefix.isEmpty()) {
-                            return;
-                        }
+                        try {
+                            var settingsService = project.getService(Settings.class);
+                            var currentPrefix = resultSet.getPrefixMatcher().getPrefix();
+                            if (currentPrefix.isEmpty()) {
+                                return;
+                            }
+
+                            var elementContext = parameters.getOriginalPosition();
+                            var scope = ImportedSymbols.findScope(elementContext != null ? elementContext : parameters.getOriginalFile());
+                            if (scope == null) {
+                                return;
+                            }
 
-                        for (var aliasMapping : state.aliasMappings) {
-                            var alias = aliasMapping.alias;
-                            var fqn = aliasMapping.fullyQualifiedName;
+                            var importedSymbols = ImportedSymbols.forScope(scope);
+                            var snapshot = settingsService.getSnapshot();
+                            var prefixMatcher = resultSet.getPrefixMatcher();
 
-                            if (AliasCompletionContributor.this.isUseStatementPresent(
-                                    namespace != null ? namespace : phpFile,
-                                    fqn,
-                                    alias
-                            )) {
-                                continue;
+                            var candidates = new LinkedHashSet<>(snapshot.prefixIndex().find(currentPrefix.replaceFirst("^\\\\+", "")));
+                            if (!(prefixMatcher instanceof PlainPrefixMatcher)) {
+                                // The index only knows literal prefixes; the matcher also finds CamelHumps ("FB" -> FooBar)
+                                // and other non-literal matches, which may coexist with literal hits
+                                for (var aliasMapping : snapshot.aliasMappings()) {
+                                    if (!candidates.contains(aliasMapping)
+                                            && (prefixMatcher.prefixMatches(aliasMapping.alias) || prefixMatcher.prefixMatches(aliasMapping.fullyQualifiedName))) {
+                                        candidates.add(aliasMapping);
+                                    }
+                                }
                             }
 
-                            var builder = LookupElementBuilder.create(alias)
-                                    .withInsertHandler(new AliasInsertHandler(fqn, alias))
-                                    .withLookupString(fqn)
-                                    .withTypeText(fqn.substring(1))
-                                    .withItemTextItalic(true)
-                                    .withIcon(AllIcons.Nodes.Alias);
+                            for (var aliasMapping : candidates) {
+                                var alias = aliasMapping.alias;
+                                var fqn = aliasMapping.fullyQualifiedName;
 
-                            resultSet.addElement(PrioritizedLookupElement.withPriority(builder, 1000.0));
-                        }
+                                if (importedSymbols.contains(fqn, alias)) {
+                                    continue;
+                                }
+
+                                var builder = LookupElementBuilder.create(alias)
+                                        .withInsertHandler(new AliasInsertHandler(fqn, alias))
+                                        .withLookupString(fqn)
+                                        .withTypeText(fqn.substring(1))
+                                        .withItemTextItalic(true)
+                                        .withIcon(AllIcons.Nodes.Alias);
 
-                        // Ensure fully qualified names are still suggested
-                        resultSet.restartCompletionOnAnyPrefixChange();
+                                resultSet.addElement(PrioritizedLookupElement.withPriority(builder, 1000.0));
+                            }
+
+                            // Ensure fully qualified names are still suggested
+                            resultSet.restartCompletionOnAnyPrefixChange();
+                        } finally {
+                            metrics.recordSince("completion.addCompletions", startNanos);
+                        }
                     }
                 }
         );
     }
-
-    // TODO: only look at DIRECT children when provided value PhpFile! Otherwise we find use statements in namespaces too
-    // TODO: Deduplicate this method...where to put it?
-    private boolean isUseStatementPresent(PhpPsiElement context, String fqcn, String alias) {
-        var useStatements = PsiTreeUtil.findChildrenOfType(context, PhpUse.class);
-        for (var useStatement : useStatements) {
-            if (useStatement.getFQN().equals(fqcn) && alias.equals(useStatement.getAliasName())) {
-                return true;
-            }
-        }
-
-        return false;
-    }
 }
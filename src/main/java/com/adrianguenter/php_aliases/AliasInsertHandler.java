@@ -1,5 +1,6 @@
 package com.adrianguenter.php_aliases;
 
+import com.adrianguenter.lib.Metrics;
 import com.intellij.codeInsight.actions.OptimizeImportsProcessor;
 import com.intellij.codeInsight.completion.InsertHandler;
 import com.intellij.codeInsight.completion.InsertionContext;
@@ -10,11 +11,14 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.util.PsiTreeUtil;
 import com.jetbrains.php.lang.psi.PhpFile;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiParserFacade;
 import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
 import com.jetbrains.php.lang.psi.elements.*;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Objects;
 
 public class AliasInsertHandler implements InsertHandler<LookupElement> {
 
@@ -28,6 +32,17 @@ public class AliasInsertHandler implements InsertHandler<LookupElement> {
 
     @Override
     public void handleInsert(@NotNull InsertionContext context, @NotNull LookupElement item) {
+        var metrics = context.getProject().getService(Metrics.class);
+        var startNanos = System.nanoTime();
+
+        try {
+            this.insert(context);
+        } finally {
+            metrics.recordSince("insert.handleInsert", startNanos);
+        }
+    }
+
+    private void insert(@NotNull InsertionContext context) {
         PsiFile file = context.getFile();
         if (!(file instanceof PhpFile phpFile)) {
             return;
@@ -45,10 +60,13 @@ public class AliasInsertHandler implements InsertHandler<LookupElement> {
             // Insert alias at caret position
             context.getDocument().replaceString(context.getStartOffset(), context.getTailOffset(), this.alias);
 
-            if (!this.isUseStatementPresent(namespace != null ? namespace : phpFile, this.fqcn, this.alias)) {
+            if (!ImportedSymbols.forScope(namespace != null ? namespace : phpFile).contains(this.fqcn, this.alias)) {
                 this.addUseStatementWithAlias(project, namespace != null ? namespace : phpFile, this.fqcn, this.alias);
-                var optimizer = new OptimizeImportsProcessor(phpFile.getProject(), phpFile);
-                optimizer.run();
+
+                if (Objects.requireNonNull(project.getService(Settings.class).getState()).optimizeImportsOnInsert) {
+                    var optimizer = new OptimizeImportsProcessor(phpFile.getProject(), phpFile);
+                    optimizer.run();
+                }
             }
         });
     }
@@ -64,17 +82,36 @@ public class AliasInsertHandler implements InsertHandler<LookupElement> {
             return;
         }
 
-        child.addBefore(useStmt, child.getFirstPsiChild());
+        var newline = PsiParserFacade.getInstance(project).createWhiteSpaceFromText("\n");
+        var useLists = PsiTreeUtil.getChildrenOfTypeAsList(child, PhpUseList.class);
+        if (useLists.isEmpty()) {
+            var added = child.addBefore(useStmt, child.getFirstPsiChild());
+            child.addAfter(newline, added);
+            return;
+        }
+
+        // Keep already sorted imports sorted without optimizing the whole file
+        var sortKeys = useLists.stream().map(AliasInsertHandler::getSortKey).toList();
+        var insertionIndex = Collections.binarySearch(sortKeys, getSortKey(useStmt));
+        if (insertionIndex < 0) {
+            insertionIndex = -insertionIndex - 1;
+        }
+
+        if (insertionIndex < useLists.size()) {
+            var added = child.addBefore(useStmt, useLists.get(insertionIndex));
+            child.addAfter(newline, added);
+        } else {
+            var added = child.addAfter(useStmt, useLists.get(useLists.size() - 1));
+            child.addBefore(newline, added);
+        }
     }
 
-    private boolean isUseStatementPresent(PhpPsiElement context, String fqcn, String alias) {
-        Collection<PhpUse> useStatements = PsiTreeUtil.findChildrenOfType(context, PhpUse.class);
-        for (PhpUse useStatement : useStatements) {
-            if (useStatement.getFQN().equals(fqcn) && alias.equals(useStatement.getAliasName())) {
-                return true;
-            }
+    private static String getSortKey(PhpUseList useList) {
+        var declarations = useList.getDeclarations();
+        if (declarations.length == 0) {
+            return "";
         }
 
-        return false;
+        return declarations[0].getFQN().replaceFirst("^\\\\", "").toLowerCase(Locale.ROOT);
     }
 }
@@ -1,9 +1,10 @@
 package com.adrianguenter.php_aliases;
 
-import com.adrianguenter.lib.FqnValidator;
+import com.adrianguenter.lib.AutoCompletionData;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.regex.Pattern;
 
 class AliasMappingDraft {
     public record ValidationError(String message, @Nullable AliasTableModel.Column column) {
@@ -12,6 +13,9 @@ class AliasMappingDraft {
     public record ValidationWarning(String message, @Nullable AliasTableModel.Column column) {
     }
 
+    static final Pattern ALIAS_PATTERN = Pattern.compile("^[A-Za-z0-9_]+$");
+    static final Pattern FQN_PATTERN = Pattern.compile("^(\\\\[A-Za-z0-9_]+)+$");
+
     final private UUID uuid;
     private int index;
     private String alias;
@@ -19,21 +23,24 @@ class AliasMappingDraft {
     private final String originalAlias;
     private final String originalFqn;
     private boolean isValidated;
-    final private FqnValidator fqnValidator;
+    final private FqnValidationQueue fqnValidationQueue;
+    private @Nullable String requestedFqn;
+    private @Nullable String validatedFqn;
+    private @Nullable FqnValidationQueue.Result fqnValidationResult;
     final private List<ValidationError> validationErrors;
     final private List<ValidationWarning> validationWarnings;
 
-    public static AliasMappingDraft fromAliasMapping(AliasMapping mapping, int index, FqnValidator fqnValidator) {
+    public static AliasMappingDraft fromAliasMapping(AliasMapping mapping, int index, FqnValidationQueue fqnValidationQueue) {
         return new AliasMappingDraft(
                 mapping.uuid,
                 index,
                 mapping.alias,
                 mapping.fullyQualifiedName,
-                fqnValidator
+                fqnValidationQueue
         );
     }
 
-    public AliasMappingDraft(UUID uuid, int index, String alias, String fqn, FqnValidator fqnValidator) {
+    public AliasMappingDraft(UUID uuid, int index, String alias, String fqn, FqnValidationQueue fqnValidationQueue) {
         this.uuid = uuid;
         this.index = index;
         this.setAlias(alias);
@@ -41,7 +48,7 @@ class AliasMappingDraft {
         this.originalAlias = this.alias;
         this.originalFqn = this.fqn;
         this.isValidated = false;
-        this.fqnValidator = fqnValidator;
+        this.fqnValidationQueue = fqnValidationQueue;
         this.validationErrors = new ArrayList<>();
         this.validationWarnings = new ArrayList<>();
     }
@@ -134,7 +141,10 @@ class AliasMappingDraft {
                 .toList();
     }
 
+    /// Also requests the index lookup for the FQN, so only rows that are actually shown hit the index
     public List<ValidationWarning> getValidationWarnings() {
+        this.requestFqnValidation();
+
         if (!this.isValidated) {
             this.validate();
         }
@@ -148,6 +158,28 @@ class AliasMappingDraft {
                 .toList();
     }
 
+    /// Index-derived data for the current FQN, or null while it is unknown or still being validated
+    public @Nullable AutoCompletionData getFqnData() {
+        if (this.fqnValidationResult == null || !this.fqn.equals(this.validatedFqn)) {
+            return null;
+        }
+
+        return this.fqnValidationResult.data();
+    }
+
+    /// Returns whether the result applies to the current FQN
+    public boolean applyFqnValidationResult(String fqn, FqnValidationQueue.Result result) {
+        if (!fqn.equals(this.fqn)) {
+            return false;
+        }
+
+        this.validatedFqn = fqn;
+        this.fqnValidationResult = result;
+        this.isValidated = false;
+
+        return true;
+    }
+
     public boolean isDirty() {
         return !Objects.equals(this.alias, this.originalAlias) || !Objects.equals(this.fqn, this.originalFqn);
     }
@@ -170,6 +202,18 @@ class AliasMappingDraft {
         return this.validationWarnings.isEmpty();
     }
 
+    private void requestFqnValidation() {
+        if (this.fqn.equals(this.validatedFqn)
+                || this.fqn.equals(this.requestedFqn)
+                || !FQN_PATTERN.matcher(this.fqn).matches()) {
+            return;
+        }
+
+        // Index lookups run in the background; the warning appears once the result is applied
+        this.requestedFqn = this.fqn;
+        this.fqnValidationQueue.request(this, this.fqn);
+    }
+
     private void validate() {
         if (this.isValidated) {
             return;
@@ -181,16 +225,18 @@ class AliasMappingDraft {
         // Validate Alias
         if (this.alias.isEmpty()) {
             this.validationErrors.add(new ValidationError("Alias cannot be empty", AliasTableModel.Column.Alias));
-        } else if (!this.alias.matches("^[A-Za-z0-9_]+$")) {
+        } else if (!ALIAS_PATTERN.matcher(this.alias).matches()) {
             this.validationErrors.add(new ValidationError("Invalid alias: " + this.alias, AliasTableModel.Column.Alias));
         }
 
         // Validate FQN
         if (this.fqn.isEmpty()) {
             this.validationErrors.add(new ValidationError("Fully qualified name cannot be empty", AliasTableModel.Column.Fqn));
-        } else if (!this.fqn.matches("^(\\\\[A-Za-z0-9_]+)+$")) {
+        } else if (!FQN_PATTERN.matcher(this.fqn).matches()) {
             this.validationErrors.add(new ValidationError("Invalid fully qualified name: " + this.fqn, AliasTableModel.Column.Fqn));
-        } else if (!this.fqnValidator.validate(this.fqn)) {
+        } else if (this.fqn.equals(this.validatedFqn)
+                && this.fqnValidationResult != null
+                && !this.fqnValidationResult.exists()) {
             this.validationWarnings.add(new ValidationWarning("Unknown fully qualified name: " + this.fqn, AliasTableModel.Column.Fqn));
         }
 
@@ -0,0 +1,222 @@
+package com.adrianguenter.php_aliases;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/// Streams alias mappings from and to JSON or CSV, one entry at a time.
+///
+/// JSON is an array of `{"alias": …, "fqn": …, "uuid": …}` objects; CSV has an `alias,fqn,uuid` header and one
+/// mapping per line. The UUID is optional in both when reading.
+final class AliasMappingsFile {
+
+    enum Format {
+        Json,
+        Csv;
+
+        static @Nullable Format forFileName(String fileName) {
+            var lowerCaseFileName = fileName.toLowerCase(Locale.ROOT);
+            if (lowerCaseFileName.endsWith(".json")) {
+                return Json;
+            }
+
+            if (lowerCaseFileName.endsWith(".csv")) {
+                return Csv;
+            }
+
+            return null;
+        }
+    }
+
+    /// A mapping as read from a file; `position` is the 1-based entry (JSON) or line (CSV) number
+    record Entry(String alias, String fqn, @Nullable UUID uuid, int position) {
+    }
+
+    private AliasMappingsFile() {
+    }
+
+    static void read(
+            Reader reader,
+            Format format,
+            Consumer<Entry> consumer
+    ) throws IOException {
+        switch (format) {
+            case Json -> readJson(reader, consumer);
+            case Csv -> readCsv(reader, consumer);
+        }
+    }
+
+    static void write(
+            Writer writer,
+            Format format,
+            Iterable<AliasMapping> aliasMappings
+    ) throws IOException {
+        switch (format) {
+            case Json -> writeJson(writer, aliasMappings);
+            case Csv -> writeCsv(writer, aliasMappings);
+        }
+    }
+
+    private static void readJson(
+            Reader reader,
+            Consumer<Entry> consumer
+    ) throws IOException {
+        var jsonReader = new JsonReader(reader);
+        var position = 0;
+
+        jsonReader.beginArray();
+        while (jsonReader.hasNext()) {
+            ++position;
+
+            String alias = null;
+            String fqn = null;
+            UUID uuid = null;
+
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                var name = jsonReader.nextName();
+                if (jsonReader.peek() == JsonToken.NULL) {
+                    jsonReader.nextNull();
+                    continue;
+                }
+
+                switch (name) {
+                    case "alias" -> alias = jsonReader.nextString();
+                    case "fqn" -> fqn = jsonReader.nextString();
+                    case "uuid" -> uuid = parseUuid(jsonReader.nextString(), position);
+                    default -> jsonReader.skipValue();
+                }
+            }
+            jsonReader.endObject();
+
+            consumer.accept(new Entry(alias != null ? alias.trim() : "", fqn != null ? fqn.trim() : "", uuid, position));
+        }
+        jsonReader.endArray();
+    }
+
+    private static void writeJson(
+            Writer writer,
+            Iterable<AliasMapping> aliasMappings
+    ) throws IOException {
+        var jsonWriter = new JsonWriter(writer);
+        jsonWriter.setIndent("  ");
+
+        jsonWriter.beginArray();
+        for (var aliasMapping : aliasMappings) {
+            jsonWriter.beginObject();
+            jsonWriter.name("alias").value(aliasMapping.alias);
+            jsonWriter.name("fqn").value(aliasMapping.fullyQualifiedName);
+            jsonWriter.name("uuid").value(aliasMapping.uuid.toString());
+            jsonWriter.endObject();
+        }
+        jsonWriter.endArray();
+        jsonWriter.flush();
+    }
+
+    private static void readCsv(
+            Reader reader,
+            Consumer<Entry> consumer
+    ) throws IOException {
+        var bufferedReader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        var position = 0;
+
+        for (String line; (line = bufferedReader.readLine()) != null; ) {
+            ++position;
+
+            if (line.isBlank() || (position == 1 && line.trim().toLowerCase(Locale.ROOT).startsWith("alias,"))) {
+                continue;
+            }
+
+            var fields = parseCsvLine(line, position);
+            consumer.accept(new Entry(
+                    fields.get(0).trim(),
+                    fields.size() > 1 ? fields.get(1).trim() : "",
+                    fields.size() > 2 && !fields.get(2).isBlank() ? parseUuid(fields.get(2).trim(), position) : null,
+                    position
+            ));
+        }
+    }
+
+    private static void writeCsv(
+            Writer writer,
+            Iterable<AliasMapping> aliasMappings
+    ) throws IOException {
+        var bufferedWriter = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer);
+
+        bufferedWriter.write("alias,fqn,uuid\n");
+        for (var aliasMapping : aliasMappings) {
+            bufferedWriter.write(quoteCsv(aliasMapping.alias));
+            bufferedWriter.write(',');
+            bufferedWriter.write(quoteCsv(aliasMapping.fullyQualifiedName));
+            bufferedWriter.write(',');
+            bufferedWriter.write(aliasMapping.uuid.toString());
+            bufferedWriter.write('\n');
+        }
+        bufferedWriter.flush();
+    }
+
+    private static ArrayList<String> parseCsvLine(
+            String line,
+            int position
+    ) throws IOException {
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        var isQuoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            var c = line.charAt(i);
+
+            if (isQuoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    ++i;
+                } else if (c == '"') {
+                    isQuoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                isQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (isQuoted) {
+            throw new IOException("Unterminated quote on line " + position);
+        }
+
+        fields.add(field.toString());
+
+        return fields;
+    }
+
+    private static String quoteCsv(String value) {
+        if (value.indexOf(',') == -1 && value.indexOf('"') == -1) {
+            return value;
+        }
+
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static UUID parseUuid(
+            String value,
+            int position
+    ) throws IOException {
+        try {
+            return UUID.fromString(value);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid UUID in entry " + position + ": " + value, e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.adrianguenter.php_aliases;
+
+import com.intellij.util.messages.Topic;
+
+interface AliasMappingsListener {
+
+    @Topic.ProjectLevel
+    Topic<AliasMappingsListener> TOPIC = new Topic<>("PHP alias mappings", AliasMappingsListener.class);
+
+    void aliasMappingsChanged(AliasMappingsSnapshot previous, AliasMappingsSnapshot current);
+}
@@ -0,0 +1,195 @@
+package com.adrianguenter.php_aliases;
+
+import com.adrianguenter.lib.PrefixIndex;
+
+import java.util.*;
+
+/// Immutable, pre-indexed view of the alias mappings, safe to share between threads
+final class AliasMappingsSnapshot {
+
+    record AliasRename(String fqn, String oldAlias, String newAlias) {
+    }
+
+    private record MappingKey(UUID uuid, String alias, String fqn) {
+        static MappingKey of(AliasMapping mapping) {
+            return new MappingKey(mapping.uuid, mapping.alias, mapping.fullyQualifiedName);
+        }
+    }
+
+    static final AliasMappingsSnapshot EMPTY = new AliasMappingsSnapshot(List.of());
+
+    private final List<AliasMapping> aliasMappings;
+    private final Map<String, AliasMapping> aliasMappingsByAlias;
+    private final Map<String, AliasMapping> aliasMappingsByFqn;
+    private final PrefixIndex<AliasMapping> prefixIndex;
+
+    private AliasMappingsSnapshot(
+            List<AliasMapping> aliasMappings
+    ) {
+        var aliasMappingsByAlias = new HashMap<String, AliasMapping>();
+        var aliasMappingsByFqn = new HashMap<String, AliasMapping>();
+        for (var mapping : aliasMappings) {
+            aliasMappingsByAlias.putIfAbsent(mapping.alias, mapping);
+            aliasMappingsByFqn.putIfAbsent(mapping.fullyQualifiedName, mapping);
+        }
+
+        this.aliasMappings = aliasMappings;
+        this.aliasMappingsByAlias = Map.copyOf(aliasMappingsByAlias);
+        this.aliasMappingsByFqn = Map.copyOf(aliasMappingsByFqn);
+        this.prefixIndex = PrefixIndex.build(aliasMappings, AliasMappingsSnapshot::getPrefixKeys);
+    }
+
+    private AliasMappingsSnapshot(
+            List<AliasMapping> aliasMappings,
+            Map<String, AliasMapping> aliasMappingsByAlias,
+            Map<String, AliasMapping> aliasMappingsByFqn,
+            PrefixIndex<AliasMapping> prefixIndex
+    ) {
+        this.aliasMappings = aliasMappings;
+        this.aliasMappingsByAlias = aliasMappingsByAlias;
+        this.aliasMappingsByFqn = aliasMappingsByFqn;
+        this.prefixIndex = prefixIndex;
+    }
+
+    static AliasMappingsSnapshot of(
+            List<AliasMapping> aliasMappings
+    ) {
+        if (aliasMappings.isEmpty()) {
+            return EMPTY;
+        }
+
+        // Detached copies, so later edits of the source list or its mappings can't leak in
+        return new AliasMappingsSnapshot(aliasMappings.stream()
+                .map(v -> new AliasMapping(v.uuid, v.alias, v.fullyQualifiedName, v.isActive))
+                .toList());
+    }
+
+    /// A snapshot with the given mappings removed (matched by UUID, alias and FQN) and the added ones appended.
+    ///
+    /// Only the changed entries are detached and indexed; the prefix index is merged instead of rebuilt.
+    AliasMappingsSnapshot withChanges(
+            Collection<AliasMapping> removed,
+            Collection<AliasMapping> added
+    ) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return this;
+        }
+
+        var removedKeys = new HashSet<MappingKey>();
+        for (var mapping : removed) {
+            removedKeys.add(MappingKey.of(mapping));
+        }
+
+        var removedMappings = new ArrayList<AliasMapping>();
+        var aliasMappings = new ArrayList<AliasMapping>(this.aliasMappings.size() + added.size());
+        for (var mapping : this.aliasMappings) {
+            // Each removed mapping takes out a single entry
+            if (!removedKeys.isEmpty() && removedKeys.remove(MappingKey.of(mapping))) {
+                removedMappings.add(mapping);
+            } else {
+                aliasMappings.add(mapping);
+            }
+        }
+
+        var addedMappings = added.stream()
+                .map(v -> new AliasMapping(v.uuid, v.alias, v.fullyQualifiedName, v.isActive))
+                .toList();
+        aliasMappings.addAll(addedMappings);
+
+        if (aliasMappings.isEmpty()) {
+            return EMPTY;
+        }
+
+        var aliasMappingsByAlias = new HashMap<>(this.aliasMappingsByAlias);
+        var aliasMappingsByFqn = new HashMap<>(this.aliasMappingsByFqn);
+        var affectedAliases = new HashSet<String>();
+        var affectedFqns = new HashSet<String>();
+        for (var mapping : removedMappings) {
+            if (aliasMappingsByAlias.remove(mapping.alias, mapping)) {
+                affectedAliases.add(mapping.alias);
+            }
+
+            if (aliasMappingsByFqn.remove(mapping.fullyQualifiedName, mapping)) {
+                affectedFqns.add(mapping.fullyQualifiedName);
+            }
+        }
+
+        // Another mapping may now be the first for a key whose entry was removed
+        if (!affectedAliases.isEmpty() || !affectedFqns.isEmpty()) {
+            for (var mapping : aliasMappings) {
+                if (affectedAliases.contains(mapping.alias)) {
+                    aliasMappingsByAlias.putIfAbsent(mapping.alias, mapping);
+                }
+
+                if (affectedFqns.contains(mapping.fullyQualifiedName)) {
+                    aliasMappingsByFqn.putIfAbsent(mapping.fullyQualifiedName, mapping);
+                }
+            }
+        }
+
+        for (var mapping : addedMappings) {
+            aliasMappingsByAlias.putIfAbsent(mapping.alias, mapping);
+            aliasMappingsByFqn.putIfAbsent(mapping.fullyQualifiedName, mapping);
+        }
+
+        return new AliasMappingsSnapshot(
+                List.copyOf(aliasMappings),
+                Map.copyOf(aliasMappingsByAlias),
+                Map.copyOf(aliasMappingsByFqn),
+                this.prefixIndex.withChanges(removedMappings, addedMappings, AliasMappingsSnapshot::getPrefixKeys)
+        );
+    }
+
+    /// Mappings that kept their identity and FQN but changed their alias.
+    ///
+    /// Takes local mappings only: UUIDs in the shared file are not under our control and may repeat a local one.
+    static List<AliasRename> findRenames(
+            List<AliasMapping> previousLocalAliasMappings,
+            List<AliasMapping> currentLocalAliasMappings
+    ) {
+        var previousByUuid = new HashMap<UUID, AliasMapping>();
+        for (var mapping : previousLocalAliasMappings) {
+            previousByUuid.put(mapping.uuid, mapping);
+        }
+
+        var renames = new ArrayList<AliasRename>();
+        for (var mapping : currentLocalAliasMappings) {
+            var previousMapping = previousByUuid.get(mapping.uuid);
+            if (previousMapping != null
+                    && previousMapping.fullyQualifiedName.equals(mapping.fullyQualifiedName)
+                    && !previousMapping.alias.equals(mapping.alias)) {
+                renames.add(new AliasRename(mapping.fullyQualifiedName, previousMapping.alias, mapping.alias));
+            }
+        }
+
+        return renames;
+    }
+
+    public List<AliasMapping> aliasMappings() {
+        return this.aliasMappings;
+    }
+
+    /// The first alias mapping for each alias
+    public Map<String, AliasMapping> aliasMappingsByAlias() {
+        return this.aliasMappingsByAlias;
+    }
+
+    /// The first alias mapping for each FQN
+    public Map<String, AliasMapping> aliasMappingsByFqn() {
+        return this.aliasMappingsByFqn;
+    }
+
+    /// Alias mappings keyed by alias name and by each segment of their FQN
+    public PrefixIndex<AliasMapping> prefixIndex() {
+        return this.prefixIndex;
+    }
+
+    private static List<String> getPrefixKeys(AliasMapping mapping) {
+        var keys = new ArrayList<String>();
+        keys.add(mapping.alias);
+        keys.add(mapping.fullyQualifiedName.substring(1));
+        keys.addAll(Arrays.asList(mapping.fullyQualifiedName.split("\\\\")));
+
+        return keys;
+    }
+}
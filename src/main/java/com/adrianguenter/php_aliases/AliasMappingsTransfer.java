@@ -0,0 +1,241 @@
+package com.adrianguenter.php_aliases;
+
+import com.adrianguenter.lib.AutoCompletionDataProvider;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.fileChooser.FileChooser;
+import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.Task;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.vfs.VirtualFile;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/// Imports and exports the mappings of the settings table through [AliasMappingsFile]
+final class AliasMappingsTransfer {
+
+    private static final String TITLE = "PHP Aliases";
+    // FQNs classified per read action; each batch is spread across cores by the data provider
+    private static final int VALIDATION_BATCH_SIZE = 500;
+    private static final int MAX_LISTED_PROBLEMS = 10;
+
+    private record ImportSummary(
+            int importedCount,
+            List<String> duplicates,
+            List<String> conflicts,
+            List<String> invalid,
+            List<String> unknownFqns
+    ) {
+        String describe() {
+            var text = new StringBuilder("Imported " + this.importedCount + " alias mapping(s).");
+            describeProblems(text, "duplicate(s) skipped", this.duplicates);
+            describeProblems(text, "conflicting alias(es) skipped", this.conflicts);
+            describeProblems(text, "invalid entry(ies) skipped", this.invalid);
+            describeProblems(text, "imported mapping(s) with an unknown FQN", this.unknownFqns);
+
+            return text.toString();
+        }
+
+        private static void describeProblems(
+                StringBuilder text,
+                String label,
+                List<String> problems
+        ) {
+            if (problems.isEmpty()) {
+                return;
+            }
+
+            text.append("\n\n").append(problems.size()).append(' ').append(label).append(':');
+            problems.stream().limit(MAX_LISTED_PROBLEMS).forEach(v -> text.append("\n  ").append(v));
+            if (problems.size() > MAX_LISTED_PROBLEMS) {
+                text.append("\n  …and ").append(problems.size() - MAX_LISTED_PROBLEMS).append(" more");
+            }
+        }
+    }
+
+    private AliasMappingsTransfer() {
+    }
+
+    static void importInto(
+            Project project,
+            AliasTableModel tableModel
+    ) {
+        var descriptor = FileChooserDescriptorFactory.createSingleFileDescriptor()
+                .withTitle("Import PHP Aliases")
+                .withDescription("A JSON or CSV file of alias mappings")
+                .withFileFilter(v -> AliasMappingsFile.Format.forFileName(v.getName()) != null);
+
+        var file = FileChooser.chooseFile(descriptor, project, null);
+        if (file == null) {
+            return;
+        }
+
+        var format = AliasMappingsFile.Format.forFileName(file.getName());
+        if (format == null) {
+            Messages.showErrorDialog(project, "Only .json and .csv files can be imported.", TITLE);
+            return;
+        }
+
+        var existingMappings = tableModel.getAliasMappings();
+
+        new Task.Modal(project, "Importing PHP Aliases", true) {
+            private final List<AliasMapping> importedMappings = new ArrayList<>();
+            private ImportSummary summary;
+
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                this.summary = readImport(project, file, format, existingMappings, this.importedMappings, indicator);
+            }
+
+            @Override
+            public void onSuccess() {
+                tableModel.addAliasMappings(this.importedMappings);
+                Messages.showInfoMessage(project, this.summary.describe(), TITLE);
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error) {
+                Messages.showErrorDialog(project, "Could not import " + file.getName() + ": " + error.getMessage(), TITLE);
+            }
+        }.queue();
+    }
+
+    static void exportFrom(
+            Project project,
+            AliasTableModel tableModel
+    ) {
+        var wrapper = FileChooserFactory.getInstance()
+                .createSaveFileDialog(new FileSaverDescriptor("Export PHP Aliases", "", "json", "csv"), project)
+                .save("php-aliases.json");
+        if (wrapper == null) {
+            return;
+        }
+
+        var path = wrapper.getFile().toPath();
+        var format = Objects.requireNonNullElse(AliasMappingsFile.Format.forFileName(path.toString()), AliasMappingsFile.Format.Json);
+        var aliasMappings = tableModel.getAliasMappings();
+
+        new Task.Modal(project, "Exporting PHP Aliases", false) {
+            @Override
+            public void run(@NotNull ProgressIndicator indicator) {
+                try (var writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                    AliasMappingsFile.write(writer, format, aliasMappings);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e.getMessage(), e);
+                }
+            }
+
+            @Override
+            public void onThrowable(@NotNull Throwable error) {
+                Messages.showErrorDialog(project, "Could not export to " + path + ": " + error.getMessage(), TITLE);
+            }
+        }.queue();
+    }
+
+    private static ImportSummary readImport(
+            Project project,
+            VirtualFile file,
+            AliasMappingsFile.Format format,
+            List<AliasMapping> existingMappings,
+            List<AliasMapping> importedMappings,
+            ProgressIndicator indicator
+    ) {
+        var fqnsByAlias = new HashMap<String, String>();
+        var uuids = new HashSet<UUID>();
+        for (var mapping : existingMappings) {
+            fqnsByAlias.putIfAbsent(mapping.alias, mapping.fullyQualifiedName);
+            uuids.add(mapping.uuid);
+        }
+
+        var duplicates = new ArrayList<String>();
+        var conflicts = new ArrayList<String>();
+        var invalid = new ArrayList<String>();
+
+        indicator.setText("Reading " + file.getName());
+        indicator.setIndeterminate(true);
+
+        // Entries are classified as they are parsed; the file itself is never held in memory
+        try (var reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            AliasMappingsFile.read(reader, format, entry -> {
+                indicator.checkCanceled();
+
+                var alias = entry.alias();
+                var fqn = entry.fqn().isEmpty() || entry.fqn().startsWith("\\") ? entry.fqn() : "\\" + entry.fqn();
+                var description = "#" + entry.position() + " " + alias + " → " + fqn;
+
+                if (!AliasMappingDraft.ALIAS_PATTERN.matcher(alias).matches()
+                        || !AliasMappingDraft.FQN_PATTERN.matcher(fqn).matches()) {
+                    invalid.add(description);
+                    return;
+                }
+
+                var mappedFqn = fqnsByAlias.get(alias);
+                if (fqn.equals(mappedFqn)) {
+                    duplicates.add(description);
+                    return;
+                }
+
+                if (mappedFqn != null) {
+                    conflicts.add(description + " (already " + mappedFqn + ")");
+                    return;
+                }
+
+                var uuid = entry.uuid();
+                if (uuid == null || !uuids.add(uuid)) {
+                    uuid = UUID.randomUUID();
+                    uuids.add(uuid);
+                }
+
+                fqnsByAlias.put(alias, fqn);
+                importedMappings.add(new AliasMapping(uuid, alias, fqn, true));
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e.getMessage(), e);
+        }
+
+        var unknownFqns = findUnknownFqns(project, importedMappings, indicator);
+
+        return new ImportSummary(importedMappings.size(), duplicates, conflicts, invalid, unknownFqns);
+    }
+
+    private static List<String> findUnknownFqns(
+            Project project,
+            List<AliasMapping> importedMappings,
+            ProgressIndicator indicator
+    ) {
+        var provider = project.getService(AutoCompletionDataProvider.class);
+        var fqns = new ArrayList<>(new LinkedHashSet<>(importedMappings.stream().map(v -> v.fullyQualifiedName).toList()));
+        var unknownFqns = new ArrayList<String>();
+
+        indicator.setText("Validating fully qualified names");
+        indicator.setIndeterminate(false);
+
+        for (int i = 0; i < fqns.size(); i += VALIDATION_BATCH_SIZE) {
+            indicator.checkCanceled();
+            indicator.setFraction((double) i / fqns.size());
+
+            var batch = fqns.subList(i, Math.min(i + VALIDATION_BATCH_SIZE, fqns.size()));
+            var dataByFqn = ReadAction.nonBlocking(() -> provider.forFqns(batch))
+                    .inSmartMode(project)
+                    .wrapProgress(indicator)
+                    .executeSynchronously();
+
+            for (var fqn : batch) {
+                if (dataByFqn.getOrDefault(fqn, Optional.empty()).isEmpty()) {
+                    unknownFqns.add(fqn);
+                }
+            }
+        }
+
+        return unknownFqns;
+    }
+}
@@ -0,0 +1,71 @@
+package com.adrianguenter.php_aliases;
+
+import com.adrianguenter.lib.AutoCompletionDataProvider;
+import com.adrianguenter.lib.FqnTypeCache;
+import com.adrianguenter.lib.NamespaceIndexProvider;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.ProjectActivity;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import kotlin.Unit;
+import kotlin.coroutines.Continuation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Executor;
+
+/// Resolves every configured mapping once indexing is done, so the first completion or settings visit is served from cache
+@Service(Service.Level.PROJECT)
+final class AliasMetadataPreloader
+        implements Disposable {
+
+    // A single background thread, so preloading never competes with interactive work for the pool
+    private static final Executor EXECUTOR = AppExecutorUtil.createBoundedApplicationPoolExecutor("PhpAliasesMetadataPreloader", 1);
+
+    private final Project project;
+
+    public AliasMetadataPreloader(
+            Project project
+    ) {
+        this.project = project;
+
+        project.getMessageBus()
+                .connect(this)
+                .subscribe(AliasMappingsListener.TOPIC, (AliasMappingsListener) (previous, current) -> this.preload());
+    }
+
+    public void preload() {
+        ReadAction.nonBlocking(() -> {
+                    var fqns = this.project.getService(Settings.class).getSnapshot().aliasMappingsByFqn().keySet();
+
+                    // Only mapped FQNs are persisted; completion candidates would grow the cache without bound
+                    this.project.getService(FqnTypeCache.class).setPersistedFqns(fqns);
+                    this.project.getService(AutoCompletionDataProvider.class).forFqns(fqns);
+                    this.project.getService(NamespaceIndexProvider.class).getIndex();
+                })
+                .inSmartMode(this.project)
+                .expireWith(this)
+                .coalesceBy(this)
+                .submit(EXECUTOR)
+                .onSuccess(v -> this.project.getService(FqnTypeCache.class).save());
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    public static final class StartupActivity
+            implements ProjectActivity {
+        @Override
+        public @Nullable Object execute(
+                @NotNull Project project,
+                @NotNull Continuation<? super Unit> continuation
+        ) {
+            project.getService(AliasMetadataPreloader.class).preload();
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.adrianguenter.php_aliases;
+
+import com.adrianguenter.lib.AutoCompletionData;
+import com.adrianguenter.lib.AutoCompletionDataProvider;
+import com.adrianguenter.lib.FqnType;
+import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiRecursiveElementWalkingVisitor;
+import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
+import com.jetbrains.php.lang.psi.elements.ClassReference;
+import com.jetbrains.php.lang.psi.elements.PhpUse;
+import com.jetbrains.php.lang.psi.elements.PhpUseList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/// Rewrites imports of mapped FQNs to their aliases, together with every reference to them in the file
+final class AliasRewriter {
+
+    private record UseListRewrite(PhpUseList useList, String fqn, AliasMapping aliasMapping) {
+    }
+
+    private final Project project;
+    private final AutoCompletionDataProvider autoCompletionDataProvider;
+
+    AliasRewriter(
+            Project project
+    ) {
+        this.project = project;
+        this.autoCompletionDataProvider = project.getService(AutoCompletionDataProvider.class);
+    }
+
+    static @Nullable AliasMapping findAliasMapping(
+            PhpUse useStatement,
+            Map<String, AliasMapping> aliasMappingsByFqn
+    ) {
+        var aliasMapping = aliasMappingsByFqn.get(useStatement.getFQN());
+        if (aliasMapping == null || aliasMapping.alias.equals(useStatement.getAliasName())) {
+            return null;
+        }
+
+        return aliasMapping;
+    }
+
+    /// Only use lists with a single import are rewritten; replacing a list like `use A\B, A\C;` or `use A\{B, C};`
+    /// would drop the imports next to the mapped one
+    static boolean isRewritable(
+            PhpUseList useList
+    ) {
+        return useList.getDeclarations().length == 1;
+    }
+
+    /// Must be called inside a write command
+    void rewrite(
+            PsiFile file,
+            Collection<PhpUseList> useLists,
+            Map<String, AliasMapping> aliasMappingsByFqn
+    ) {
+        var useListRewrites = new ArrayList<UseListRewrite>();
+        var aliasMappingsToApply = new HashMap<String, AliasMapping>();
+
+        for (var useList : useLists) {
+            if (!useList.isValid() || !isRewritable(useList)) {
+                continue;
+            }
+
+            var useStatement = useList.getDeclarations()[0];
+            var aliasMapping = findAliasMapping(useStatement, aliasMappingsByFqn);
+            if (aliasMapping == null || !this.isClassLike(useStatement.getFQN())) {
+                continue;
+            }
+
+            useListRewrites.add(new UseListRewrite(useList, useStatement.getFQN(), aliasMapping));
+            aliasMappingsToApply.put(useStatement.getFQN(), aliasMapping);
+        }
+
+        if (useListRewrites.isEmpty()) {
+            return;
+        }
+
+        // Collect every reference first so no FQN is resolved against a partially rewritten file
+        var references = new LinkedHashMap<ClassReference, String>();
+        file.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(@NotNull PsiElement element) {
+                if (element instanceof ClassReference reference
+                        && !(reference.getParent() instanceof PhpUse)) {
+                    var aliasMapping = aliasMappingsToApply.get(reference.getFQN());
+                    if (aliasMapping != null && !aliasMapping.alias.equals(reference.getText())) {
+                        references.put(reference, aliasMapping.alias);
+                    }
+                }
+
+                super.visitElement(element);
+            }
+        });
+
+        var aliasReferences = new HashMap<String, ClassReference>();
+        references.forEach((reference, alias) -> {
+            if (reference.isValid()) {
+                reference.replace(aliasReferences.computeIfAbsent(
+                        alias,
+                        k -> PhpPsiElementFactory.createClassReference(this.project, k)
+                ));
+            }
+        });
+
+        for (var useListRewrite : useListRewrites) {
+            this.rewriteUseList(useListRewrite);
+        }
+    }
+
+    /// Must be called inside a write command
+    void renameAlias(
+            PsiFile file,
+            AliasMappingsSnapshot.AliasRename rename
+    ) {
+        if (!this.isClassLike(rename.fqn())) {
+            // Namespace aliases also prefix qualified names, which are not rewritten here
+            return;
+        }
+
+        var useLists = new ArrayList<PhpUseList>();
+        var references = new ArrayList<ClassReference>();
+
+        file.accept(new PsiRecursiveElementWalkingVisitor() {
+            @Override
+            public void visitElement(@NotNull PsiElement element) {
+                if (element instanceof PhpUse useStatement
+                        && rename.fqn().equals(useStatement.getFQN())
+                        && rename.oldAlias().equals(useStatement.getAliasName())
+                        && useStatement.getParent() instanceof PhpUseList useList
+                        && isRewritable(useList)) {
+                    useLists.add(useList);
+                } else if (element instanceof ClassReference reference
+                        && !(reference.getParent() instanceof PhpUse)
+                        && rename.oldAlias().equals(reference.getText())
+                        && rename.fqn().equals(reference.getFQN())) {
+                    references.add(reference);
+                }
+
+                super.visitElement(element);
+            }
+        });
+
+        if (useLists.isEmpty()) {
+            return;
+        }
+
+        var aliasReference = PhpPsiElementFactory.createClassReference(this.project, rename.newAlias());
+        for (var reference : references) {
+            if (reference.isValid()) {
+                reference.replace(aliasReference);
+            }
+        }
+
+        for (var useList : useLists) {
+            if (useList.isValid()) {
+                useList.replace(PhpPsiElementFactory.createUseStatement(this.project, rename.fqn(), rename.newAlias()));
+            }
+        }
+    }
+
+    private void rewriteUseList(
+            UseListRewrite useListRewrite
+    ) {
+        var useList = useListRewrite.useList();
+        var fqn = useListRewrite.fqn();
+        var alias = useListRewrite.aliasMapping().alias;
+
+        if (!useList.isValid()) {
+            return;
+        }
+
+        var scope = ImportedSymbols.findScope(useList);
+        if (scope != null && ImportedSymbols.forScope(scope).containsOutside(fqn, alias, useList)) {
+            // The aliased import is already present
+            useList.delete();
+            return;
+        }
+
+        useList.replace(PhpPsiElementFactory.createUseStatement(this.project, fqn, alias));
+    }
+
+    private boolean isClassLike(
+            String fqn
+    ) {
+        return this.autoCompletionDataProvider.forFqn(fqn)
+                .map(AutoCompletionData::type)
+                .filter(type -> type != FqnType.Namespace)
+                .isPresent();
+    }
+}
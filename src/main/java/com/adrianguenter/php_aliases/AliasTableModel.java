@@ -1,6 +1,7 @@
 package com.adrianguenter.php_aliases;
 
-import com.adrianguenter.lib.FqnValidator;
+import com.adrianguenter.lib.AutoCompletionData;
+import org.jetbrains.annotations.Nullable;
 
 import javax.swing.table.AbstractTableModel;
 import java.util.*;
@@ -31,14 +32,44 @@ public class AliasTableModel extends AbstractTableModel {
 
     private final List<AliasMappingDraft> draftsList = new ArrayList<>();
     private final Runnable validationListener;
-    private final FqnValidator fqnValidator;
+    private final FqnValidationQueue fqnValidationQueue;
     private int originalAliasMappingsCount;
+    private boolean hasRemovedRows;
     private boolean isValid;
+    // Kept up to date on every change, so isValid() and isModified() don't walk all drafts
+    private int invalidRowCount;
+    private int dirtyRowCount;
 
-    AliasTableModel(Runnable validationListener, FqnValidator fqnValidator) {
+    AliasTableModel(Runnable validationListener, FqnValidationQueue fqnValidationQueue) {
         this.validationListener = validationListener;
-        this.fqnValidator = fqnValidator;
+        this.fqnValidationQueue = fqnValidationQueue;
         this.isValid = true;
+
+        this.fqnValidationQueue.setListener(this::fqnValidated);
+    }
+
+    private void fqnValidated(AliasMappingDraft draft) {
+        // FQN existence only produces warnings, so the counters are unaffected
+        var rowIndex = draft.getIndex();
+        if (rowIndex < this.draftsList.size() && this.draftsList.get(rowIndex) == draft) {
+            this.fireTableRowsUpdated(rowIndex, rowIndex);
+        }
+    }
+
+    private boolean rowCountsAsInvalid(int index) {
+        var draft = this.draftsList.get(index);
+
+        return !draft.isValid() && (!this.rowIsLast(index) || !draft.isEmpty());
+    }
+
+    private void countRow(int index, int delta) {
+        if (this.rowCountsAsInvalid(index)) {
+            this.invalidRowCount += delta;
+        }
+
+        if (this.draftsList.get(index).isDirty()) {
+            this.dirtyRowCount += delta;
+        }
     }
 
     private void notifyValidationStateChange() {
@@ -56,16 +87,45 @@ public class AliasTableModel extends AbstractTableModel {
 
     public void setAliasMappings(List<AliasMapping> aliasMappings) {
         this.draftsList.clear();
-        this.draftsList.addAll(
-                aliasMappings.stream()
-                        .map(v -> AliasMappingDraft.fromAliasMapping(v, 0, this.fqnValidator))
-                        .toList());
-        this.draftsList.add(new AliasMappingDraft(UUID.randomUUID(), this.draftsList.size(), "", "", this.fqnValidator));
+        for (var aliasMapping : aliasMappings) {
+            this.draftsList.add(AliasMappingDraft.fromAliasMapping(aliasMapping, this.draftsList.size(), this.fqnValidationQueue));
+        }
+        this.draftsList.add(new AliasMappingDraft(UUID.randomUUID(), this.draftsList.size(), "", "", this.fqnValidationQueue));
 
         this.originalAliasMappingsCount = this.draftsList.size();
+        this.hasRemovedRows = false;
+        this.invalidRowCount = 0;
+        this.dirtyRowCount = 0;
+        for (int i = 0; i < this.draftsList.size(); i++) {
+            this.countRow(i, 1);
+        }
+
         this.fireTableDataChanged();
     }
 
+    /// Appends mappings above the blank row in a single table event
+    public void addAliasMappings(List<AliasMapping> aliasMappings) {
+        if (aliasMappings.isEmpty()) {
+            return;
+        }
+
+        var blankRowIndex = this.draftsList.size() - 1;
+        this.countRow(blankRowIndex, -1);
+        var blankRow = this.draftsList.remove(blankRowIndex);
+
+        for (var aliasMapping : aliasMappings) {
+            this.draftsList.add(AliasMappingDraft.fromAliasMapping(aliasMapping, this.draftsList.size(), this.fqnValidationQueue));
+            this.countRow(this.draftsList.size() - 1, 1);
+        }
+
+        blankRow.setIndex(this.draftsList.size());
+        this.draftsList.add(blankRow);
+        this.countRow(this.draftsList.size() - 1, 1);
+
+        this.fireTableRowsInserted(blankRowIndex, this.draftsList.size() - 2);
+        this.fireTableRowsUpdated(this.draftsList.size() - 1, this.draftsList.size() - 1);
+    }
+
     @Override
     public int getRowCount() {
         return this.draftsList.size();
@@ -93,14 +153,20 @@ public class AliasTableModel extends AbstractTableModel {
     public void setValueAt(Object aValue, int rowIndex, Column column) {
         String value = aValue != null ? aValue.toString().trim() : "";
 
+        this.countRow(rowIndex, -1);
         this.draftsList.get(rowIndex).setValueAtColumn(value, column);
-        this.fireTableCellUpdated(rowIndex, column.index());
 
         if (rowIndex == this.draftsList.size() - 1 && column == Column.Alias && !value.isEmpty()) {
             // Add value new entry when typing into the blank row
             var newRowIndex = this.draftsList.size();
-            this.draftsList.add(new AliasMappingDraft(UUID.randomUUID(), newRowIndex, "", "", this.fqnValidator));
+            this.draftsList.add(new AliasMappingDraft(UUID.randomUUID(), newRowIndex, "", "", this.fqnValidationQueue));
+            this.countRow(rowIndex, 1);
+            this.countRow(newRowIndex, 1);
+            this.fireTableCellUpdated(rowIndex, column.index());
             this.fireTableRowsInserted(newRowIndex, newRowIndex);
+        } else {
+            this.countRow(rowIndex, 1);
+            this.fireTableCellUpdated(rowIndex, column.index());
         }
     }
 
@@ -119,9 +185,20 @@ public class AliasTableModel extends AbstractTableModel {
             throw new IndexOutOfBoundsException();
         }
 
+        var isLast = this.rowIsLast(index);
+        this.countRow(index, -1);
+        if (isLast && index > 0) {
+            this.countRow(index - 1, -1);
+        }
+
         this.draftsList.remove(index);
+        this.hasRemovedRows = true;
+
+        if (isLast && index > 0) {
+            this.countRow(index - 1, 1);
+        }
 
-        // TODO: Do we need this at all? We should remove AliasMappingDraft.index if it isn't used
+        // Draft indices map validation results back to their rows
         int i = 0;
         for (AliasMappingDraft draft : this.draftsList) {
             try {
@@ -158,6 +235,10 @@ public class AliasTableModel extends AbstractTableModel {
         return this.draftsList.get(index).getValidationWarnings();
     }
 
+    public @Nullable AutoCompletionData getFqnDataAt(int index) {
+        return this.draftsList.get(index).getFqnData();
+    }
+
     public boolean rowIsEmpty(int index) {
         return this.draftsList.get(index).isEmpty();
     }
@@ -171,41 +252,18 @@ public class AliasTableModel extends AbstractTableModel {
     }
 
     public boolean isValid() {
-        int i = 0;
-        for (AliasMappingDraft draft : this.draftsList) {
-            try {
-                if (!draft.isValid() && (!this.rowIsLast(i) || !draft.isEmpty())) {
-                    if (this.isValid) {
-                        this.notifyValidationStateChange();
-                    }
-
-                    this.isValid = false;
-                    return false;
-                }
-            } finally {
-                ++i;
-            }
-        }
-
-        if (!this.isValid) {
+        var isValid = this.invalidRowCount == 0;
+        if (isValid != this.isValid) {
             this.notifyValidationStateChange();
         }
 
-        this.isValid = true;
-        return true;
+        this.isValid = isValid;
+        return isValid;
     }
 
     public boolean isModified() {
-        if (this.draftsList.size() != this.originalAliasMappingsCount) {
-            return true;
-        }
-
-        for (AliasMappingDraft draft : this.draftsList) {
-            if (draft.isDirty()) {
-                return true;
-            }
-        }
-
-        return false;
+        return this.hasRemovedRows
+                || this.dirtyRowCount > 0
+                || this.draftsList.size() != this.originalAliasMappingsCount;
     }
 }
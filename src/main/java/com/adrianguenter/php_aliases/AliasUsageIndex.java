@@ -0,0 +1,134 @@
+package com.adrianguenter.php_aliases;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.IOUtil;
+import com.intellij.util.io.KeyDescriptor;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.PhpUse;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/// Per PHP file, the imported FQNs and every alias each is imported as (an empty string when imported without one)
+public final class AliasUsageIndex
+        extends FileBasedIndexExtension<String, List<String>> {
+
+    public static final ID<String, List<String>> NAME = ID.create("com.adrianguenter.php_aliases.AliasUsageIndex");
+
+    private static final DataExternalizer<List<String>> ALIASES_EXTERNALIZER = new DataExternalizer<>() {
+        @Override
+        public void save(
+                @NotNull DataOutput out,
+                List<String> aliases
+        ) throws IOException {
+            DataInputOutputUtil.writeINT(out, aliases.size());
+            for (var alias : aliases) {
+                IOUtil.writeUTF(out, alias);
+            }
+        }
+
+        @Override
+        public List<String> read(
+                @NotNull DataInput in
+        ) throws IOException {
+            var size = DataInputOutputUtil.readINT(in);
+            var aliases = new ArrayList<String>(size);
+            for (int i = 0; i < size; i++) {
+                aliases.add(IOUtil.readUTF(in));
+            }
+
+            return aliases;
+        }
+    };
+
+    public static Collection<VirtualFile> getFilesImporting(
+            String fqn,
+            GlobalSearchScope scope
+    ) {
+        return FileBasedIndex.getInstance().getContainingFiles(NAME, fqn, scope);
+    }
+
+    public static Collection<VirtualFile> getFilesImportingAs(
+            String fqn,
+            String alias,
+            GlobalSearchScope scope
+    ) {
+        var files = new ArrayList<VirtualFile>();
+        FileBasedIndex.getInstance().processValues(NAME, fqn, null, (file, importedAliases) -> {
+            if (importedAliases.contains(alias)) {
+                files.add(file);
+            }
+
+            return true;
+        }, scope);
+
+        return files;
+    }
+
+    @Override
+    public @NotNull ID<String, List<String>> getName() {
+        return NAME;
+    }
+
+    @Override
+    public @NotNull DataIndexer<String, List<String>, FileContent> getIndexer() {
+        return inputData -> {
+            if (!(inputData.getPsiFile() instanceof PhpFile phpFile)) {
+                return Map.of();
+            }
+
+            var entries = new HashMap<String, List<String>>();
+            for (var useStatement : PsiTreeUtil.findChildrenOfType(phpFile, PhpUse.class)) {
+                if (useStatement.isTraitImport()) {
+                    continue;
+                }
+
+                var fqn = useStatement.getFQN();
+                var alias = useStatement.getAliasName();
+
+                var aliases = entries.computeIfAbsent(fqn, k -> new ArrayList<>());
+                var importedAlias = alias != null ? alias : "";
+                if (!aliases.contains(importedAlias)) {
+                    aliases.add(importedAlias);
+                }
+            }
+
+            return entries;
+        };
+    }
+
+    @Override
+    public @NotNull KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Override
+    public @NotNull DataExternalizer<List<String>> getValueExternalizer() {
+        return ALIASES_EXTERNALIZER;
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Override
+    public FileBasedIndex.@NotNull InputFilter getInputFilter() {
+        return new DefaultFileTypeSpecificInputFilter(PhpFileType.INSTANCE);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+}
@@ -0,0 +1,103 @@
+package com.adrianguenter.php_aliases;
+
+import com.intellij.openapi.actionSystem.ActionUpdateThread;
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.PhpUseList;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/// Rewrites existing imports of mapped FQNs to their aliases across the whole project
+public class ApplyAliasesAction
+        extends AnAction {
+
+    @Override
+    public @NotNull ActionUpdateThread getActionUpdateThread() {
+        return ActionUpdateThread.BGT;
+    }
+
+    @Override
+    public void update(@NotNull AnActionEvent event) {
+        var project = event.getProject();
+
+        event.getPresentation().setEnabledAndVisible(project != null
+                && !project.getService(Settings.class).getSnapshot().aliasMappings().isEmpty());
+    }
+
+    @Override
+    public void actionPerformed(@NotNull AnActionEvent event) {
+        var project = event.getProject();
+        if (project == null) {
+            return;
+        }
+
+        var aliasMappingsByFqn = project.getService(Settings.class).getSnapshot().aliasMappingsByFqn();
+        var aliasRewriter = new AliasRewriter(project);
+
+        ProgressManager.getInstance().run(new AliasBulkRewriteTask(project, "Apply PHP Aliases") {
+            @Override
+            protected Collection<VirtualFile> findCandidateFiles() {
+                return ApplyAliasesAction.findFilesImporting(project, aliasMappingsByFqn.keySet());
+            }
+
+            @Override
+            protected boolean needsRewrite(PsiFile file) {
+                return !ApplyAliasesAction.findMappedUseLists(file, aliasMappingsByFqn).isEmpty();
+            }
+
+            @Override
+            protected void rewrite(PsiFile file) {
+                aliasRewriter.rewrite(file, ApplyAliasesAction.findMappedUseLists(file, aliasMappingsByFqn), aliasMappingsByFqn);
+            }
+        });
+    }
+
+    private static Collection<VirtualFile> findFilesImporting(
+            Project project,
+            Collection<String> fqns
+    ) {
+        var scope = GlobalSearchScope.projectScope(project);
+
+        var files = new LinkedHashSet<VirtualFile>();
+        for (var fqn : fqns) {
+            ProgressManager.checkCanceled();
+
+            files.addAll(AliasUsageIndex.getFilesImporting(fqn, scope));
+        }
+
+        return files;
+    }
+
+    private static List<PhpUseList> findMappedUseLists(
+            PsiFile file,
+            Map<String, AliasMapping> aliasMappingsByFqn
+    ) {
+        if (!(file instanceof PhpFile)) {
+            return List.of();
+        }
+
+        var useLists = new ArrayList<PhpUseList>();
+        for (var useList : PsiTreeUtil.findChildrenOfType(file, PhpUseList.class)) {
+            if (!AliasRewriter.isRewritable(useList)) {
+                continue;
+            }
+
+            for (var useStatement : useList.getDeclarations()) {
+                if (!useStatement.isTraitImport() && AliasRewriter.findAliasMapping(useStatement, aliasMappingsByFqn) != null) {
+                    useLists.add(useList);
+                    break;
+                }
+            }
+        }
+
+        return useLists;
+    }
+}
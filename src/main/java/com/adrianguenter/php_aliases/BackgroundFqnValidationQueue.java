@@ -0,0 +1,116 @@
+package com.adrianguenter.php_aliases;
+
+import com.adrianguenter.lib.AutoCompletionDataProvider;
+import com.adrianguenter.lib.FqnValidator;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/// Checks draft FQNs against the PHP index in a cancellable background read action.
+///
+/// Requests made during the same UI event are validated as one batch and the results are applied on the UI thread.
+final class BackgroundFqnValidationQueue
+        implements FqnValidationQueue {
+
+    private final Project project;
+    private final FqnValidator fqnValidator;
+    private final Disposable parentDisposable;
+    // Only accessed on the UI thread
+    private final Map<AliasMappingDraft, String> pendingFqns = new LinkedHashMap<>();
+    private boolean isSubmitScheduled;
+    private @Nullable Listener listener;
+
+    BackgroundFqnValidationQueue(
+            Project project,
+            FqnValidator fqnValidator,
+            Disposable parentDisposable
+    ) {
+        this.project = project;
+        this.fqnValidator = fqnValidator;
+        this.parentDisposable = parentDisposable;
+    }
+
+    @Override
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void request(
+            AliasMappingDraft draft,
+            String fqn
+    ) {
+        this.pendingFqns.put(draft, fqn);
+
+        if (this.isSubmitScheduled) {
+            return;
+        }
+
+        this.isSubmitScheduled = true;
+        ApplicationManager.getApplication().invokeLater(() -> {
+            this.isSubmitScheduled = false;
+            this.submit();
+        }, ModalityState.any());
+    }
+
+    private void submit() {
+        if (this.pendingFqns.isEmpty()) {
+            return;
+        }
+
+        var batch = new LinkedHashMap<>(this.pendingFqns);
+
+        // A newer batch cancels the running one; its drafts stay pending until a result is applied
+        ReadAction.nonBlocking(() -> this.validate(batch))
+                .inSmartMode(this.project)
+                .expireWith(this.parentDisposable)
+                .coalesceBy(this)
+                .finishOnUiThread(ModalityState.any(), results -> this.apply(batch, results))
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+    private Map<AliasMappingDraft, Result> validate(
+            Map<AliasMappingDraft, String> batch
+    ) {
+        var existingFqns = new HashSet<String>();
+        for (var fqn : new HashSet<>(batch.values())) {
+            ProgressManager.checkCanceled();
+
+            if (this.fqnValidator.validate(fqn)) {
+                existingFqns.add(fqn);
+            }
+        }
+
+        var dataByFqn = this.project.getService(AutoCompletionDataProvider.class).forFqns(existingFqns);
+
+        var results = new HashMap<AliasMappingDraft, Result>();
+        batch.forEach((draft, fqn) -> results.put(draft, new Result(
+                existingFqns.contains(fqn),
+                dataByFqn.getOrDefault(fqn, Optional.empty()).orElse(null)
+        )));
+
+        return results;
+    }
+
+    private void apply(
+            Map<AliasMappingDraft, String> batch,
+            Map<AliasMappingDraft, Result> results
+    ) {
+        batch.forEach((draft, fqn) -> {
+            if (fqn.equals(this.pendingFqns.get(draft))) {
+                this.pendingFqns.remove(draft);
+            }
+
+            if (draft.applyFqnValidationResult(fqn, results.get(draft)) && this.listener != null) {
+                this.listener.fqnValidated(draft);
+            }
+        });
+    }
+}
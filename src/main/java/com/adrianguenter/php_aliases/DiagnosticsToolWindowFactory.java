@@ -0,0 +1,133 @@
+package com.adrianguenter.php_aliases;
+
+import com.adrianguenter.lib.Metrics;
+import com.intellij.icons.AllIcons;
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.fileChooser.FileChooserFactory;
+import com.intellij.openapi.fileChooser.FileSaverDescriptor;
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.DumbAwareAction;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.ui.SimpleToolWindowPanel;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.table.DefaultTableModel;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Locale;
+
+/// Shows the plugin's session metrics and exports them as JSON
+public final class DiagnosticsToolWindowFactory
+        implements ToolWindowFactory, DumbAware {
+
+    private static final int REFRESH_INTERVAL_MS = 1000;
+    private static final String[] COLUMNS = {"Metric", "Count", "Mean (ms)", "p50 (ms)", "p95 (ms)", "p99 (ms)", "Max (ms)"};
+
+    @Override
+    public void createToolWindowContent(
+            @NotNull Project project,
+            @NotNull ToolWindow toolWindow
+    ) {
+        var metrics = project.getService(Metrics.class);
+
+        var tableModel = new DefaultTableModel(COLUMNS, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+
+        var panel = new SimpleToolWindowPanel(true, true);
+        panel.setContent(new JBScrollPane(new JBTable(tableModel)));
+
+        var actions = new DefaultActionGroup();
+        actions.add(new DumbAwareAction("Refresh", null, AllIcons.Actions.Refresh) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                refresh(metrics, tableModel);
+            }
+        });
+        actions.add(new DumbAwareAction("Reset", null, AllIcons.Actions.GC) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                metrics.reset();
+                refresh(metrics, tableModel);
+            }
+        });
+        actions.add(new DumbAwareAction("Export as JSON…", null, AllIcons.ToolbarDecorator.Export) {
+            @Override
+            public void actionPerformed(@NotNull AnActionEvent e) {
+                exportJson(project, metrics);
+            }
+        });
+
+        var toolbar = ActionManager.getInstance().createActionToolbar("PhpAliasesDiagnostics", actions, true);
+        toolbar.setTargetComponent(panel);
+        panel.setToolbar(toolbar.getComponent());
+
+        var content = toolWindow.getContentManager().getFactory().createContent(panel, null, false);
+        toolWindow.getContentManager().addContent(content);
+
+        // Only polls while the content exists; the metrics themselves are always recorded
+        var timer = new Timer(REFRESH_INTERVAL_MS, e -> {
+            if (panel.isShowing()) {
+                refresh(metrics, tableModel);
+            }
+        });
+        timer.start();
+        Disposer.register(content, timer::stop);
+
+        refresh(metrics, tableModel);
+    }
+
+    private static void refresh(
+            Metrics metrics,
+            DefaultTableModel tableModel
+    ) {
+        tableModel.setRowCount(0);
+
+        metrics.getCounters().forEach((name, count) -> tableModel.addRow(new Object[]{name, count, "", "", "", "", ""}));
+        metrics.getHistograms().forEach((name, histogram) -> tableModel.addRow(new Object[]{
+                name,
+                histogram.count(),
+                formatMillis(histogram.meanMillis()),
+                formatMillis(histogram.percentileMillis(50)),
+                formatMillis(histogram.percentileMillis(95)),
+                formatMillis(histogram.percentileMillis(99)),
+                formatMillis(histogram.maxMillis()),
+        }));
+    }
+
+    private static void exportJson(
+            Project project,
+            Metrics metrics
+    ) {
+        var json = metrics.toJson();
+        var wrapper = FileChooserFactory.getInstance()
+                .createSaveFileDialog(new FileSaverDescriptor("Export PHP Aliases Metrics", "", "json"), project)
+                .save("php-aliases-metrics.json");
+        if (wrapper == null) {
+            return;
+        }
+
+        try {
+            Files.writeString(wrapper.getFile().toPath(), json, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            Messages.showErrorDialog(project, e.getMessage(), "Export Failed");
+        }
+    }
+
+    private static String formatMillis(double millis) {
+        return String.format(Locale.ROOT, "%.3f", millis);
+    }
+}
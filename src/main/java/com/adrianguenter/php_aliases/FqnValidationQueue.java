@@ -0,0 +1,33 @@
+package com.adrianguenter.php_aliases;
+
+import com.adrianguenter.lib.AutoCompletionData;
+import com.adrianguenter.lib.FqnValidator;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import org.jetbrains.annotations.Nullable;
+
+/// Where drafts request index lookups for their FQN; results come back through the listener
+interface FqnValidationQueue {
+
+    record Result(boolean exists, @Nullable AutoCompletionData data) {
+    }
+
+    interface Listener {
+        void fqnValidated(AliasMappingDraft draft);
+    }
+
+    static FqnValidationQueue create(
+            Project project,
+            FqnValidator fqnValidator,
+            Disposable parentDisposable
+    ) {
+        return new BackgroundFqnValidationQueue(project, fqnValidator, parentDisposable);
+    }
+
+    void setListener(@Nullable Listener listener);
+
+    void request(
+            AliasMappingDraft draft,
+            String fqn
+    );
+}
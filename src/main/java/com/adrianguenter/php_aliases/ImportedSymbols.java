@@ -0,0 +1,96 @@
+package com.adrianguenter.php_aliases;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.jetbrains.php.lang.psi.PhpFile;
+import com.jetbrains.php.lang.psi.elements.PhpNamespace;
+import com.jetbrains.php.lang.psi.elements.PhpPsiElement;
+import com.jetbrains.php.lang.psi.elements.PhpUse;
+import com.jetbrains.php.lang.psi.elements.PhpUseList;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/// Snapshot of the (FQN, alias) pairs imported into a file or namespace, cached until the file changes
+final class ImportedSymbols {
+
+    // Number of use statements importing each pair
+    private final Map<AliasTableModel.AliasFqnPair, Integer> importCounts;
+
+    private ImportedSymbols(
+            Map<AliasTableModel.AliasFqnPair, Integer> importCounts
+    ) {
+        this.importCounts = importCounts;
+    }
+
+    public static ImportedSymbols forScope(
+            PhpPsiElement scope
+    ) {
+        return CachedValuesManager.getCachedValue(scope, () -> CachedValueProvider.Result.create(
+                ImportedSymbols.collect(scope),
+                scope.getContainingFile()
+        ));
+    }
+
+    /// Resolves the enclosing namespace (or the file itself) of the given element
+    public static @Nullable PhpPsiElement findScope(
+            PsiElement element
+    ) {
+        var namespace = PsiTreeUtil.getParentOfType(element, PhpNamespace.class);
+        if (namespace != null) {
+            return namespace;
+        }
+
+        var file = element.getContainingFile();
+
+        return file instanceof PhpFile phpFile ? phpFile : null;
+    }
+
+    public boolean contains(
+            String fqn,
+            String alias
+    ) {
+        return this.importCounts.containsKey(new AliasTableModel.AliasFqnPair(alias, fqn));
+    }
+
+    /// Whether the pair is imported by a use statement other than those in the given use list
+    public boolean containsOutside(
+            String fqn,
+            String alias,
+            PhpUseList useList
+    ) {
+        var aliasFqnPair = new AliasTableModel.AliasFqnPair(alias, fqn);
+        int count = this.importCounts.getOrDefault(aliasFqnPair, 0);
+
+        for (var useStatement : useList.getDeclarations()) {
+            if (aliasFqnPair.equals(new AliasTableModel.AliasFqnPair(useStatement.getAliasName(), useStatement.getFQN()))) {
+                --count;
+            }
+        }
+
+        return count > 0;
+    }
+
+    private static ImportedSymbols collect(
+            PhpPsiElement scope
+    ) {
+        var importCounts = new HashMap<AliasTableModel.AliasFqnPair, Integer>();
+        for (var useStatement : PsiTreeUtil.findChildrenOfType(scope, PhpUse.class)) {
+            if (useStatement.isTraitImport()) {
+                continue;
+            }
+
+            // A file scope only owns the imports outside of its namespaces
+            if (scope instanceof PhpFile && PsiTreeUtil.getParentOfType(useStatement, PhpNamespace.class) != null) {
+                continue;
+            }
+
+            importCounts.merge(new AliasTableModel.AliasFqnPair(useStatement.getAliasName(), useStatement.getFQN()), 1, Integer::sum);
+        }
+
+        return new ImportedSymbols(Map.copyOf(importCounts));
+    }
+}
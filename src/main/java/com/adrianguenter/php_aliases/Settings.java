@@ -1,6 +1,7 @@
 package com.adrianguenter.php_aliases;
 
 import com.intellij.openapi.components.*;
+import com.intellij.openapi.project.Project;
 import com.intellij.util.xmlb.annotations.Tag;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
@@ -16,10 +17,16 @@ import java.util.*;
 final class Settings
         implements PersistentStateComponent<Settings.State> {
 
+    private final Project project;
     private State state = new State();
+    private volatile AliasMappingsSnapshot snapshot = AliasMappingsSnapshot.EMPTY;
+    // Mappings from the version-controlled alias file; never persisted to the project storage
+    private List<AliasMapping> sharedAliasMappings = List.of();
 
     public Settings(
+            Project project
     ) {
+        this.project = project;
     }
 
     @Override
@@ -30,38 +37,127 @@ final class Settings
 
     @Override
     public void loadState(@NotNull State state) {
+        state.aliasMappings = deduplicate(state.aliasMappings);
 
-        final var seenUuids = new HashSet<UUID>();
-        final var aliasFqnPairs = new HashSet<AliasTableModel.AliasFqnPair>();
+//        ApplicationManager.getApplication().invokeLater(() -> {
+//            ApplicationManager.getApplication().runWriteAction(() -> {
+//                this.project.save();
+//            });
+//        });
 
-        for (int i = 0; i < state.aliasMappings.size(); i++) {
-            var mapping = state.aliasMappings.get(i);
-            var aliasFqnPair = mapping.getAliasFqnPair();
+        synchronized (this) {
+            this.state = state;
+            this.publishSnapshot(AliasMappingsSnapshot.of(this.getEffectiveAliasMappings()));
+        }
+    }
+
+    /// Drops repeated alias/FQN pairs and gives mappings with an already used UUID a new one
+    static List<AliasMapping> deduplicate(List<AliasMapping> aliasMappings) {
+        var seenUuids = new HashSet<UUID>();
+        var aliasFqnPairs = new HashSet<AliasTableModel.AliasFqnPair>();
+        var deduplicated = new ArrayList<AliasMapping>(aliasMappings.size());
 
-            if (seenUuids.contains(mapping.uuid)) {
+        // Copying instead of removing in place keeps this linear when many entries are dropped
+        for (var mapping : aliasMappings) {
+            // Dropped duplicates still claim their UUID, as they always have
+            if (!seenUuids.add(mapping.uuid)) {
                 mapping.uuid = UUID.randomUUID();
+                seenUuids.add(mapping.uuid);
             }
 
-            if (aliasFqnPairs.contains(aliasFqnPair)) {
-                state.aliasMappings.remove(i--);
+            if (!aliasFqnPairs.add(mapping.getAliasFqnPair())) {
+                continue;
             }
 
-            seenUuids.add(mapping.uuid);
-            aliasFqnPairs.add(aliasFqnPair);
+            deduplicated.add(mapping);
         }
 
-//        ApplicationManager.getApplication().invokeLater(() -> {
-//            ApplicationManager.getApplication().runWriteAction(() -> {
-//                this.project.save();
-//            });
-//        });
+        return deduplicated;
+    }
+
+    /// Replaces the persisted mappings and publishes a new snapshot
+    public synchronized void setAliasMappings(List<AliasMapping> aliasMappings) {
+        this.state.aliasMappings = new ArrayList<>(aliasMappings);
+        this.publishSnapshot(AliasMappingsSnapshot.of(this.getEffectiveAliasMappings()));
+    }
+
+    /// The persisted mappings only, without those from the shared alias file
+    public synchronized List<AliasMapping> getLocalAliasMappings() {
+        return List.copyOf(this.state.aliasMappings);
+    }
+
+    /// Applies a change of the shared alias file to the current snapshot without rebuilding it
+    public synchronized void applySharedAliasMappingChanges(
+            Collection<AliasMapping> removed,
+            Collection<AliasMapping> added
+    ) {
+        var removedUuids = new HashSet<UUID>();
+        for (var mapping : removed) {
+            removedUuids.add(mapping.uuid);
+        }
 
-        this.state = state;
+        var sharedAliasMappings = new ArrayList<AliasMapping>(this.sharedAliasMappings.size() + added.size());
+        for (var mapping : this.sharedAliasMappings) {
+            if (!removedUuids.contains(mapping.uuid)) {
+                sharedAliasMappings.add(mapping);
+            }
+        }
+        sharedAliasMappings.addAll(added);
+        this.sharedAliasMappings = List.copyOf(sharedAliasMappings);
+
+        // Shared mappings repeating a local one were never part of the snapshot
+        var localAliasFqnPairs = this.getLocalAliasFqnPairs();
+        this.publishSnapshot(this.snapshot.withChanges(
+                removed.stream().filter(v -> !localAliasFqnPairs.contains(v.getAliasFqnPair())).toList(),
+                added.stream().filter(v -> !localAliasFqnPairs.contains(v.getAliasFqnPair())).toList()
+        ));
+    }
+
+    public AliasMappingsSnapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    /// Local mappings first, so they win lookups over shared ones with the same alias or FQN
+    private List<AliasMapping> getEffectiveAliasMappings() {
+        if (this.sharedAliasMappings.isEmpty()) {
+            return this.state.aliasMappings;
+        }
+
+        var localAliasFqnPairs = this.getLocalAliasFqnPairs();
+        var aliasMappings = new ArrayList<>(this.state.aliasMappings);
+        for (var mapping : this.sharedAliasMappings) {
+            if (!localAliasFqnPairs.contains(mapping.getAliasFqnPair())) {
+                aliasMappings.add(mapping);
+            }
+        }
+
+        return aliasMappings;
+    }
+
+    private Set<AliasTableModel.AliasFqnPair> getLocalAliasFqnPairs() {
+        var aliasFqnPairs = new HashSet<AliasTableModel.AliasFqnPair>();
+        for (var mapping : this.state.aliasMappings) {
+            aliasFqnPairs.add(mapping.getAliasFqnPair());
+        }
+
+        return aliasFqnPairs;
+    }
+
+    private void publishSnapshot(AliasMappingsSnapshot current) {
+        var previous = this.snapshot;
+        this.snapshot = current;
+
+        if (!this.project.isDisposed()) {
+            this.project.getMessageBus().syncPublisher(AliasMappingsListener.TOPIC).aliasMappingsChanged(previous, current);
+        }
     }
 
     static class State {
         @Tag("aliasMappings")
         @NonNls
         public List<AliasMapping> aliasMappings = new ArrayList<>();
+
+        @Tag("optimizeImportsOnInsert")
+        public boolean optimizeImportsOnInsert = false;
     }
 }
@@ -3,24 +3,39 @@ package com.adrianguenter.php_aliases;
 import com.adrianguenter.lib.AutoCompletionData;
 import com.adrianguenter.lib.AutoCompletionDataProvider;
 import com.adrianguenter.lib.FqnValidator;
+import com.adrianguenter.lib.NamespaceIndexProvider;
 import com.intellij.codeInsight.completion.CompletionParameters;
 import com.intellij.codeInsight.completion.PlainPrefixMatcher;
 import com.intellij.icons.AllIcons;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.editor.impl.EditorComponentImpl;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.ui.DocumentAdapter;
 import com.intellij.ui.JBColor;
+import com.intellij.ui.SearchTextField;
 import com.intellij.ui.TextFieldWithAutoCompletion;
+import com.intellij.ui.components.JBCheckBox;
 import com.intellij.ui.table.JBTable;
 import com.jetbrains.php.PhpIndex;
 import com.jetbrains.php.PhpIndexImpl;
+import com.jetbrains.php.lang.PhpLanguage;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import javax.swing.border.Border;
+import javax.swing.event.DocumentEvent;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableCellEditor;
 import javax.swing.table.TableColumn;
+import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.*;
 import java.util.*;
@@ -30,9 +45,13 @@ public class SettingsComponent {
 
     private final Border cellPaddingBorder = BorderFactory.createEmptyBorder(3, 3, 3, 3);
     private final Project project;
+    private final Disposable disposable;
     private final JPanel panel;
     private final JBTable table;
     private final AliasTableModel tableModel;
+    private final TableRowSorter<AliasTableModel> rowSorter;
+    private final SearchTextField searchField;
+    private final JBCheckBox optimizeImportsCheckBox;
 
     public SettingsComponent(
             Project project,
@@ -40,19 +59,55 @@ public class SettingsComponent {
     ) {
         var phpIndex = (PhpIndexImpl) PhpIndex.getInstance(project);
 
+        var namespaceIndexProvider = project.getService(NamespaceIndexProvider.class);
+
         FqnValidator fqnValidator = (String fqn) -> !phpIndex.getClassesByFQN(fqn).isEmpty()
                 || !phpIndex.getInterfacesByFQN(fqn).isEmpty()
                 || !phpIndex.getTraitsByFQN(fqn).isEmpty()
-                || phpIndex.getAllChildNamespacesFqns("\\").contains(fqn);
-
-        var autoCompletionDataProvider = project.getService(AutoCompletionDataProvider.class);
+                || namespaceIndexProvider.getIndex().contains(fqn);
 
         this.project = project;
-        this.tableModel = new AliasTableModel(validationListener, fqnValidator);
+        this.disposable = Disposer.newDisposable("PhpAliasesSettingsComponent");
+        this.tableModel = new AliasTableModel(
+                validationListener,
+                FqnValidationQueue.create(project, fqnValidator, this.disposable)
+        );
         this.table = new JBTable(this.tableModel);
+        this.rowSorter = new AliasTableRowSorter(this.tableModel);
+        this.table.setRowSorter(this.rowSorter);
+
+        this.searchField = new SearchTextField(false);
+        this.searchField.addDocumentListener(new DocumentAdapter() {
+            @Override
+            protected void textChanged(@NotNull DocumentEvent e) {
+                SettingsComponent.this.applyFilter();
+            }
+        });
+
+        var importButton = new JButton("Import…", AllIcons.ToolbarDecorator.Import);
+        importButton.setToolTipText("Add mappings from a JSON or CSV file");
+        importButton.addActionListener(e -> AliasMappingsTransfer.importInto(this.project, this.tableModel));
+
+        var exportButton = new JButton("Export…", AllIcons.ToolbarDecorator.Export);
+        exportButton.setToolTipText("Save the valid mappings as JSON or CSV");
+        exportButton.addActionListener(e -> AliasMappingsTransfer.exportFrom(this.project, this.tableModel));
+
+        var buttonsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 4, 0));
+        buttonsPanel.add(importButton);
+        buttonsPanel.add(exportButton);
+
+        var topPanel = new JPanel(new BorderLayout());
+        topPanel.add(this.searchField, BorderLayout.CENTER);
+        topPanel.add(buttonsPanel, BorderLayout.EAST);
+
         this.panel = new JPanel(new BorderLayout());
+        this.panel.add(topPanel, BorderLayout.NORTH);
         this.panel.add(new JScrollPane(this.table), BorderLayout.CENTER);
 
+        this.optimizeImportsCheckBox = new JBCheckBox("Optimize all imports after inserting an alias");
+        this.optimizeImportsCheckBox.setToolTipText("Otherwise only the new use statement is inserted at its sorted position");
+        this.panel.add(this.optimizeImportsCheckBox, BorderLayout.SOUTH);
+
         SwingUtilities.invokeLater(() -> {
             int totalWidth = this.table.getWidth() - 100;
             if (totalWidth < 200) {
@@ -80,7 +135,7 @@ public class SettingsComponent {
                 return;
             }
 
-            this.tableModel.removeRowAt(selectedRow);
+            this.tableModel.removeRowAt(this.table.convertRowIndexToModel(selectedRow));
             this.table.revalidate();
             this.table.repaint();
         });
@@ -108,7 +163,9 @@ public class SettingsComponent {
                 }
 
                 SettingsComponent.this.table.setRowSelectionInterval(rowIndex, rowIndex);
-                deleteMenuItem.setEnabled(!SettingsComponent.this.getTableModel().rowIsLast(rowIndex));
+                deleteMenuItem.setEnabled(!SettingsComponent.this.getTableModel().rowIsLast(
+                        SettingsComponent.this.table.convertRowIndexToModel(rowIndex)
+                ));
                 popupMenu.show(event.getComponent(), event.getX(), event.getY());
             }
         });
@@ -116,12 +173,14 @@ public class SettingsComponent {
         this.table.addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseMoved(MouseEvent event) {
-                int row = SettingsComponent.this.table.rowAtPoint(event.getPoint());
-                if (row == -1) {
+                int viewRow = SettingsComponent.this.table.rowAtPoint(event.getPoint());
+                int viewColumn = SettingsComponent.this.table.columnAtPoint(event.getPoint());
+                if (viewRow == -1 || viewColumn == -1) {
                     return;
                 }
 
-                var column = AliasTableModel.Column.forIndex(SettingsComponent.this.table.columnAtPoint(event.getPoint()));
+                int row = SettingsComponent.this.table.convertRowIndexToModel(viewRow);
+                var column = AliasTableModel.Column.forIndex(SettingsComponent.this.table.convertColumnIndexToModel(viewColumn));
 
                 String text = "";
 
@@ -157,8 +216,13 @@ public class SettingsComponent {
                 switch (e.getKeyCode()) {
                     case KeyEvent.VK_DELETE -> {
                         int selectedRow = SettingsComponent.this.table.getSelectedRow();
-                        if (selectedRow != -1 && !SettingsComponent.this.getTableModel().rowIsLast(selectedRow)) {
-                            SettingsComponent.this.tableModel.removeRowAt(selectedRow);
+                        if (selectedRow == -1) {
+                            return;
+                        }
+
+                        int modelRow = SettingsComponent.this.table.convertRowIndexToModel(selectedRow);
+                        if (!SettingsComponent.this.getTableModel().rowIsLast(modelRow)) {
+                            SettingsComponent.this.tableModel.removeRowAt(modelRow);
 
                             if (selectedRow >= SettingsComponent.this.table.getRowCount()) {
                                 selectedRow = SettingsComponent.this.table.getRowCount() - 1;
@@ -178,8 +242,12 @@ public class SettingsComponent {
             private static final Color warningBackgroundDark = Color.decode("#565600");
 
             @Override
-            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int rowIndex, int columnIndex) {
-                JLabel component = (JLabel) super.getTableCellRendererComponent(table, value, isSelected, hasFocus, rowIndex, columnIndex);
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int viewRowIndex, int viewColumnIndex) {
+                JLabel component = (JLabel) super.getTableCellRendererComponent(table, value, isSelected, hasFocus, viewRowIndex, viewColumnIndex);
+
+                // Only visible cells are rendered, so this is also where FQN lookups are requested
+                int rowIndex = table.convertRowIndexToModel(viewRowIndex);
+                int columnIndex = table.convertColumnIndexToModel(viewColumnIndex);
 
                 component.setBorder(BorderFactory.createCompoundBorder(
                         component.getBorder(),
@@ -210,7 +278,7 @@ public class SettingsComponent {
                         background = new JBColor(warningBackgroundLight, warningBackgroundDark);
                     } else {
                         if (column == AliasTableModel.Column.Fqn) {
-                            var autoCompletionData = autoCompletionDataProvider.forFqn(SettingsComponent.this.tableModel.getValueAt(rowIndex, column)).orElse(null);
+                            var autoCompletionData = SettingsComponent.this.tableModel.getFqnDataAt(rowIndex);
                             if (autoCompletionData != null) {
                                 icon = autoCompletionData.icon();
                             }
@@ -235,6 +303,31 @@ public class SettingsComponent {
                 .setCellEditor(new FqnCellEditor(phpIndex));
     }
 
+    private void applyFilter() {
+        var query = this.searchField.getText().trim();
+        if (query.isEmpty()) {
+            this.rowSorter.setRowFilter(null);
+            return;
+        }
+
+        this.rowSorter.setRowFilter(new RowFilter<AliasTableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends AliasTableModel, ? extends Integer> entry) {
+                var rowIndex = entry.getIdentifier();
+                var tableModel = entry.getModel();
+
+                // The blank row stays visible so new mappings can be added while filtering
+                return tableModel.rowIsLast(rowIndex)
+                        || StringUtil.containsIgnoreCase(tableModel.getValueAt(rowIndex, AliasTableModel.Column.Alias), query)
+                        || StringUtil.containsIgnoreCase(tableModel.getValueAt(rowIndex, AliasTableModel.Column.Fqn), query);
+            }
+        });
+    }
+
+    public void dispose() {
+        Disposer.dispose(this.disposable);
+    }
+
     public JPanel getPanel() {
         return this.panel;
     }
@@ -243,6 +336,82 @@ public class SettingsComponent {
         return this.tableModel;
     }
 
+    public JBCheckBox getOptimizeImportsCheckBox() {
+        return this.optimizeImportsCheckBox;
+    }
+
+    /// Sorts case-insensitively while keeping the blank row for new mappings at the bottom in either direction
+    private static final class AliasTableRowSorter
+            extends TableRowSorter<AliasTableModel> {
+
+        private static final Object BLANK_ROW = new Object();
+
+        AliasTableRowSorter(
+                AliasTableModel tableModel
+        ) {
+            super(tableModel);
+
+            // Replaces the blank row's values with a marker the comparators recognise
+            var modelWrapper = this.getModelWrapper();
+            this.setModelWrapper(new ModelWrapper<>() {
+                @Override
+                public AliasTableModel getModel() {
+                    return modelWrapper.getModel();
+                }
+
+                @Override
+                public int getColumnCount() {
+                    return modelWrapper.getColumnCount();
+                }
+
+                @Override
+                public int getRowCount() {
+                    return modelWrapper.getRowCount();
+                }
+
+                @Override
+                public Object getValueAt(int row, int column) {
+                    return this.getModel().rowIsLast(row) ? BLANK_ROW : modelWrapper.getValueAt(row, column);
+                }
+
+                @Override
+                public String getStringValueAt(int row, int column) {
+                    return modelWrapper.getStringValueAt(row, column);
+                }
+
+                @Override
+                public Integer getIdentifier(int row) {
+                    return modelWrapper.getIdentifier(row);
+                }
+            });
+
+            for (var column : AliasTableModel.Column.values()) {
+                this.setComparator(column.index(), (Object a, Object b) -> this.compareValues(column.index(), a, b));
+            }
+        }
+
+        private int compareValues(
+                int columnIndex,
+                Object a,
+                Object b
+        ) {
+            if (a != BLANK_ROW && b != BLANK_ROW) {
+                return String.CASE_INSENSITIVE_ORDER.compare((String) a, (String) b);
+            }
+
+            if (a == b) {
+                return 0;
+            }
+
+            // The sorter reverses comparisons when descending; undo that for the blank row
+            var comparison = a == BLANK_ROW ? 1 : -1;
+            var isDescending = this.getSortKeys().stream()
+                    .anyMatch(v -> v.getColumn() == columnIndex && v.getSortOrder() == SortOrder.DESCENDING);
+
+            return isDescending ? -comparison : comparison;
+        }
+    }
+
     private class FqnCellEditor
             extends AbstractCellEditor
             implements TableCellEditor {
@@ -304,8 +473,16 @@ public class SettingsComponent {
         private class PhpClasslikeCompletionProvider
                 extends TextFieldWithAutoCompletion.StringsCompletionProvider {
 
+            // Candidates of the last search, narrowed as the prefix grows
+            private record SearchSession(String prefix, long generation, List<String> candidates) {
+            }
+
             private final PhpIndexImpl phpIndex;
             private final AutoCompletionDataProvider autoCompletionDataProvider;
+            private final NamespaceIndexProvider namespaceIndexProvider;
+            private final ModificationTracker phpModificationTracker;
+            private final ModificationTracker dumbModificationTracker;
+            private volatile @Nullable SearchSession session;
 
             PhpClasslikeCompletionProvider(
                     PhpIndexImpl phpIndex,
@@ -315,6 +492,9 @@ public class SettingsComponent {
 
                 this.phpIndex = phpIndex;
                 this.autoCompletionDataProvider = SettingsComponent.this.project.getService(AutoCompletionDataProvider.class);
+                this.namespaceIndexProvider = SettingsComponent.this.project.getService(NamespaceIndexProvider.class);
+                this.phpModificationTracker = PsiModificationTracker.getInstance(SettingsComponent.this.project).forLanguage(PhpLanguage.INSTANCE);
+                this.dumbModificationTracker = DumbService.getInstance(SettingsComponent.this.project).getModificationTracker();
             }
 
             @Override
@@ -323,25 +503,85 @@ public class SettingsComponent {
                     boolean cached,
                     CompletionParameters parameters
             ) {
+                var session = this.session;
+                var generation = this.getIndexGeneration();
+                var canNarrow = session != null
+                        && session.generation() == generation
+                        && StringUtil.startsWithIgnoreCase(prefix, session.prefix());
+
                 if (cached) {
-                    return new ArrayList<>();
+                    if (!canNarrow) {
+                        // Nothing to narrow, the uncached pass searches the index
+                        return List.of();
+                    }
+
+                    // Instant results from the previous candidates while the uncached pass is skipped below
+                    var candidates = this.narrow(session.candidates(), prefix);
+                    this.session = new SearchSession(prefix, generation, candidates);
+
+                    return candidates;
+                }
+
+                if (canNarrow) {
+                    if (session.prefix().equals(prefix)) {
+                        // Already delivered by the cached pass
+                        return List.of();
+                    }
+
+                    var candidates = this.narrow(session.candidates(), prefix);
+                    this.session = new SearchSession(prefix, generation, candidates);
+
+                    return candidates;
                 }
 
+                var candidates = ReadAction.compute(() -> this.search(prefix));
+                this.session = new SearchSession(prefix, generation, candidates);
+
+                return candidates;
+            }
+
+            private List<String> search(
+                    String prefix
+            ) {
                 var matcher = new PlainPrefixMatcher(prefix);
+                var fqns = new LinkedHashSet<String>();
 
-                var classFqns = this.phpIndex.getAllClassFqns(matcher).stream().filter(v -> !this.phpIndex.getClassesByFQN(v).isEmpty()).toList();
-                var fqns = new HashSet<>(classFqns);
+                fqns.addAll(this.phpIndex.getAllClassFqns(matcher));
+                ProgressManager.checkCanceled();
 
-                var interfaceFqns = this.phpIndex.getAllInterfacesFqns(matcher).stream().filter(v -> !this.phpIndex.getInterfacesByFQN(v).isEmpty()).toList();
-                fqns.addAll(interfaceFqns);
+                fqns.addAll(this.phpIndex.getAllInterfacesFqns(matcher));
+                ProgressManager.checkCanceled();
 
-                var traitFqns = this.phpIndex.getAllTraitsFqns(matcher).stream().filter(v -> !this.phpIndex.getTraitsByFQN(v).isEmpty()).toList();
-                fqns.addAll(traitFqns);
+                fqns.addAll(this.phpIndex.getAllTraitsFqns(matcher));
+                ProgressManager.checkCanceled();
 
-                var namespaceFqns = this.phpIndex.getAllChildNamespacesFqns("\\").stream().filter(v -> v.contains(prefix) && !this.phpIndex.getNamespacesByName(v).isEmpty()).toList();
-                fqns.addAll(namespaceFqns);
+                fqns.addAll(this.namespaceIndexProvider.getIndex().find(prefix));
+
+                return List.copyOf(fqns);
+            }
+
+            private List<String> narrow(
+                    List<String> candidates,
+                    String prefix
+            ) {
+                // Looser than any of the index matchers, so narrowing never drops a real match
+                var narrowed = new ArrayList<String>();
+                for (int i = 0; i < candidates.size(); i++) {
+                    if ((i & 0xFFF) == 0) {
+                        ProgressManager.checkCanceled();
+                    }
+
+                    if (StringUtil.containsIgnoreCase(candidates.get(i), prefix)) {
+                        narrowed.add(candidates.get(i));
+                    }
+                }
+
+                return narrowed;
+            }
 
-                return fqns;
+            private long getIndexGeneration() {
+                return this.phpModificationTracker.getModificationCount()
+                        + this.dumbModificationTracker.getModificationCount();
             }
 
             @Override
@@ -3,12 +3,19 @@ package com.adrianguenter.php_aliases;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.options.Configurable;
 import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.ui.DialogWrapper;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.search.GlobalSearchScope;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 
 public class SettingsConfigurable
@@ -58,6 +65,10 @@ public class SettingsConfigurable
             return true;
         }
 
+        if (this.settingsComponent.getOptimizeImportsCheckBox().isSelected() != this.getSettingsState().optimizeImportsOnInsert) {
+            return true;
+        }
+
         return this.settingsComponent.getTableModel().isModified();
     }
 
@@ -67,14 +78,18 @@ public class SettingsConfigurable
             throw new ConfigurationException("There are validation errors in the alias mappings. Please fix them before applying.");
         }
 
-        this.getSettingsState().aliasMappings = this.settingsComponent.getTableModel().getAliasMappings();
+        var previousLocalAliasMappings = this.settingsService.getLocalAliasMappings();
+        this.settingsService.setAliasMappings(this.settingsComponent.getTableModel().getAliasMappings());
+        this.propagateRenames(AliasMappingsSnapshot.findRenames(previousLocalAliasMappings, this.settingsService.getLocalAliasMappings()));
+        this.getSettingsState().optimizeImportsOnInsert = this.settingsComponent.getOptimizeImportsCheckBox().isSelected();
 
         this.reset();
     }
 
     @Override
     public void reset() {
-        this.settingsComponent.getTableModel().setAliasMappings(this.getSettingsState().aliasMappings);
+        this.settingsComponent.getTableModel().setAliasMappings(this.settingsService.getLocalAliasMappings());
+        this.settingsComponent.getOptimizeImportsCheckBox().setSelected(this.getSettingsState().optimizeImportsOnInsert);
 
         DialogWrapper dialog = DialogWrapper.findInstance(this.settingsComponent.getPanel());
         if (dialog != null) {
@@ -84,9 +99,47 @@ public class SettingsConfigurable
 
     @Override
     public void disposeUIResources() {
+        if (this.settingsComponent != null) {
+            this.settingsComponent.dispose();
+        }
+
         this.settingsComponent = null;
     }
 
+    private void propagateRenames(List<AliasMappingsSnapshot.AliasRename> renames) {
+        if (renames.isEmpty()) {
+            return;
+        }
+
+        var aliasRewriter = new AliasRewriter(this.project);
+        var scope = GlobalSearchScope.projectScope(this.project);
+
+        ProgressManager.getInstance().run(new AliasBulkRewriteTask(this.project, "Rename PHP Aliases") {
+            @Override
+            protected Collection<VirtualFile> findCandidateFiles() {
+                var files = new LinkedHashSet<VirtualFile>();
+                for (var rename : renames) {
+                    files.addAll(AliasUsageIndex.getFilesImportingAs(rename.fqn(), rename.oldAlias(), scope));
+                }
+
+                return files;
+            }
+
+            @Override
+            protected boolean needsRewrite(PsiFile file) {
+                // The index is exact for this question
+                return true;
+            }
+
+            @Override
+            protected void rewrite(PsiFile file) {
+                for (var rename : renames) {
+                    aliasRewriter.renameAlias(file, rename);
+                }
+            }
+        });
+    }
+
     private Settings.State getSettingsState() {
         return Objects.requireNonNull(this.settingsService.getState());
     }
@@ -0,0 +1,187 @@
+package com.adrianguenter.php_aliases;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.ProjectActivity;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileMoveEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFilePropertyChangeEvent;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import kotlin.Unit;
+import kotlin.coroutines.Continuation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/// Loads the optional, version-controlled `.php-aliases.json` from the project root into [Settings].
+///
+/// The file is watched through VFS events; on every change only the added, removed or changed mappings are
+/// handed to the settings service.
+@Service(Service.Level.PROJECT)
+final class SharedAliasFile
+        implements Disposable {
+
+    static final String FILE_NAME = ".php-aliases.json";
+
+    private static final Logger LOG = Logger.getInstance(SharedAliasFile.class);
+
+    private final Project project;
+    // Only accessed on the UI thread
+    private Map<UUID, AliasMapping> aliasMappingsByUuid = Map.of();
+
+    public SharedAliasFile(
+            Project project
+    ) {
+        this.project = project;
+
+        project.getMessageBus().connect(this).subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+            @Override
+            public void after(@NotNull List<? extends @NotNull VFileEvent> events) {
+                for (var event : events) {
+                    if (SharedAliasFile.this.isAffectedBy(event)) {
+                        SharedAliasFile.this.scheduleReload();
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    public void scheduleReload() {
+        ReadAction.nonBlocking(this::read)
+                .expireWith(this)
+                .coalesceBy(this)
+                .finishOnUiThread(ModalityState.nonModal(), this::apply)
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+    private @Nullable String getPath() {
+        var basePath = this.project.getBasePath();
+
+        return basePath != null ? basePath + "/" + FILE_NAME : null;
+    }
+
+    private boolean isAffectedBy(
+            VFileEvent event
+    ) {
+        var path = this.getPath();
+        if (path == null) {
+            return false;
+        }
+
+        if (path.equals(event.getPath())) {
+            return true;
+        }
+
+        if (event instanceof VFileMoveEvent moveEvent) {
+            return path.equals(moveEvent.getOldPath());
+        }
+
+        return event instanceof VFilePropertyChangeEvent propertyChangeEvent
+                && propertyChangeEvent.isRename()
+                && path.equals(propertyChangeEvent.getOldPath());
+    }
+
+    /// Returns null when the file can't be parsed, so the mappings loaded before stay in effect
+    private @Nullable Map<UUID, AliasMapping> read() {
+        var path = this.getPath();
+        var file = path != null ? LocalFileSystem.getInstance().findFileByPath(path) : null;
+        if (file == null || !file.isValid() || file.isDirectory()) {
+            return Map.of();
+        }
+
+        var aliasMappingsByUuid = new LinkedHashMap<UUID, AliasMapping>();
+        try (var reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            AliasMappingsFile.read(reader, AliasMappingsFile.Format.Json, entry -> {
+                ProgressManager.checkCanceled();
+
+                var alias = entry.alias();
+                var fqn = entry.fqn().isEmpty() || entry.fqn().startsWith("\\") ? entry.fqn() : "\\" + entry.fqn();
+                if (!AliasMappingDraft.ALIAS_PATTERN.matcher(alias).matches()
+                        || !AliasMappingDraft.FQN_PATTERN.matcher(fqn).matches()) {
+                    LOG.warn(FILE_NAME + ": skipping invalid entry #" + entry.position());
+                    return;
+                }
+
+                // Entries without a UUID are identified by their content, so they stay stable across reloads
+                var uuid = entry.uuid() != null
+                        ? entry.uuid()
+                        : UUID.nameUUIDFromBytes((alias + "\n" + fqn).getBytes(StandardCharsets.UTF_8));
+
+                aliasMappingsByUuid.putIfAbsent(uuid, new AliasMapping(uuid, alias, fqn, true));
+            });
+        } catch (IOException | IllegalStateException e) {
+            LOG.warn("Could not read " + path + ": " + e.getMessage());
+            return null;
+        }
+
+        return aliasMappingsByUuid;
+    }
+
+    private void apply(
+            @Nullable Map<UUID, AliasMapping> aliasMappingsByUuid
+    ) {
+        if (aliasMappingsByUuid == null || this.project.isDisposed()) {
+            return;
+        }
+
+        var removed = new ArrayList<AliasMapping>();
+        var added = new ArrayList<AliasMapping>();
+
+        this.aliasMappingsByUuid.forEach((uuid, mapping) -> {
+            var newMapping = aliasMappingsByUuid.get(uuid);
+            if (newMapping == null || !isSameMapping(mapping, newMapping)) {
+                removed.add(mapping);
+            }
+        });
+
+        aliasMappingsByUuid.forEach((uuid, mapping) -> {
+            var oldMapping = this.aliasMappingsByUuid.get(uuid);
+            if (oldMapping == null || !isSameMapping(oldMapping, mapping)) {
+                added.add(mapping);
+            }
+        });
+
+        this.aliasMappingsByUuid = aliasMappingsByUuid;
+
+        if (!removed.isEmpty() || !added.isEmpty()) {
+            this.project.getService(Settings.class).applySharedAliasMappingChanges(removed, added);
+        }
+    }
+
+    private static boolean isSameMapping(
+            AliasMapping a,
+            AliasMapping b
+    ) {
+        return a.alias.equals(b.alias) && a.fullyQualifiedName.equals(b.fullyQualifiedName);
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    public static final class StartupActivity
+            implements ProjectActivity {
+        @Override
+        public @Nullable Object execute(
+                @NotNull Project project,
+                @NotNull Continuation<? super Unit> continuation
+        ) {
+            project.getService(SharedAliasFile.class).scheduleReload();
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.adrianguenter.php_aliases;
+
+import com.adrianguenter.lib.AutoCompletionDataProvider;
+import com.adrianguenter.lib.FqnType;
+import com.adrianguenter.lib.NamespaceIndexProvider;
+import com.intellij.notification.NotificationAction;
+import com.intellij.notification.NotificationGroupManager;
+import com.intellij.notification.NotificationType;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ModalityState;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.options.ShowSettingsUtil;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.startup.ProjectActivity;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.ui.update.MergingUpdateQueue;
+import com.intellij.util.ui.update.Update;
+import com.jetbrains.php.PhpIndex;
+import kotlin.Unit;
+import kotlin.coroutines.Continuation;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/// Keeps track of mappings whose FQN no longer exists.
+///
+/// PHP changes are merged for a short while, and a check only runs once PHP stubs actually changed. It then looks up
+/// only the mappings whose declaring file changed (plus namespaces and already stale mappings, which have no single
+/// declaring file) in the index again, in one batch. Files are compared by their PSI stamp, so edits in unsaved
+/// editors count too.
+@Service(Service.Level.PROJECT)
+final class StaleMappingDetector
+        implements Disposable {
+
+    /// The declaring file by reference to its VirtualFile, so the PSI can still be collected
+    private record Definition(@Nullable VirtualFile file, long modificationStamp) {
+        boolean isUnchanged(PsiManager psiManager) {
+            if (this.file == null || !this.file.isValid()) {
+                return false;
+            }
+
+            var psiFile = psiManager.findFile(this.file);
+
+            return psiFile != null && psiFile.getModificationStamp() == this.modificationStamp;
+        }
+    }
+
+    // PHP changes within this window lead to a single check
+    private static final int CHECK_DELAY_MS = 500;
+
+    private final Project project;
+    private final ModificationTracker phpStubModificationTracker;
+    private final MergingUpdateQueue checkQueue;
+    private final Map<String, Definition> definitionsByFqn = new ConcurrentHashMap<>();
+    private final AtomicLong requestedCheckCount = new AtomicLong();
+    private volatile Set<String> staleFqns = Set.of();
+    private volatile long checkedRequestCount = -1;
+    private volatile long checkedPhpStubModificationCount = -1;
+
+    public StaleMappingDetector(
+            Project project
+    ) {
+        this.project = project;
+        this.phpStubModificationTracker = NamespaceIndexProvider.getPhpStubModificationTracker(project);
+
+        this.checkQueue = new MergingUpdateQueue(
+                "PhpAliasesStaleMappingCheck",
+                CHECK_DELAY_MS,
+                true,
+                MergingUpdateQueue.ANY_COMPONENT,
+                this
+        );
+
+        var connection = project.getMessageBus().connect(this);
+        connection.subscribe(PsiModificationTracker.TOPIC, this::onPsiModification);
+        connection.subscribe(AliasMappingsListener.TOPIC, (previous, current) -> this.scheduleCheck());
+        connection.subscribe(DumbService.DUMB_MODE, new DumbService.DumbModeListener() {
+            @Override
+            public void exitDumbMode() {
+                StaleMappingDetector.this.scheduleCheck();
+            }
+        });
+    }
+
+    public Set<String> getStaleFqns() {
+        return this.staleFqns;
+    }
+
+    private void onPsiModification() {
+        // The topic fires on every keystroke in any language; the check itself skips changes that left PHP stubs alone
+        this.checkQueue.queue(Update.create(this, this::submitCheck));
+    }
+
+    /// Checks all mappings again, whether or not PHP stubs changed since the last check
+    public void scheduleCheck() {
+        this.requestedCheckCount.incrementAndGet();
+        this.submitCheck();
+    }
+
+    private void submitCheck() {
+        ReadAction.nonBlocking(this::check)
+                .inSmartMode(this.project)
+                .expireWith(this)
+                .coalesceBy(this)
+                .finishOnUiThread(ModalityState.nonModal(), this::publish)
+                .submit(AppExecutorUtil.getAppExecutorService());
+    }
+
+    private Set<String> check() {
+        var requestCount = this.requestedCheckCount.get();
+        var phpStubModificationCount = this.phpStubModificationTracker.getModificationCount();
+        if (requestCount == this.checkedRequestCount && phpStubModificationCount == this.checkedPhpStubModificationCount) {
+            return this.staleFqns;
+        }
+
+        var phpIndex = PhpIndex.getInstance(this.project);
+        var psiManager = PsiManager.getInstance(this.project);
+        var fqns = this.project.getService(Settings.class).getSnapshot().aliasMappingsByFqn().keySet();
+        var staleFqns = new HashSet<String>();
+
+        this.definitionsByFqn.keySet().retainAll(fqns);
+
+        var changedFqns = new ArrayList<String>();
+        for (var fqn : fqns) {
+            var definition = this.definitionsByFqn.get(fqn);
+            if (definition == null || !definition.isUnchanged(psiManager)) {
+                changedFqns.add(fqn);
+            }
+        }
+
+        var dataByFqn = this.project.getService(AutoCompletionDataProvider.class).forFqns(changedFqns);
+
+        for (var fqn : changedFqns) {
+            ProgressManager.checkCanceled();
+
+            var data = dataByFqn.get(fqn);
+            if (data == null || data.isEmpty()) {
+                this.definitionsByFqn.remove(fqn);
+                staleFqns.add(fqn);
+            } else if (data.get().type() == FqnType.Namespace) {
+                this.definitionsByFqn.put(fqn, new Definition(null, -1));
+            } else {
+                // Only the declaring file is needed here; the classification above already did the heavy lifting
+                var file = phpIndex.getAnyByFQN(fqn).stream()
+                        .findFirst()
+                        .map(phpClass -> phpClass.getContainingFile())
+                        .orElse(null);
+                this.definitionsByFqn.put(fqn, new Definition(
+                        file != null ? file.getVirtualFile() : null,
+                        file != null ? file.getModificationStamp() : -1
+                ));
+            }
+        }
+
+        this.checkedRequestCount = requestCount;
+        this.checkedPhpStubModificationCount = phpStubModificationCount;
+
+        return Set.copyOf(staleFqns);
+    }
+
+    private void publish(Set<String> staleFqns) {
+        var previousStaleFqns = this.staleFqns;
+        this.staleFqns = staleFqns;
+
+        var newlyStaleFqns = staleFqns.stream()
+                .filter(v -> !previousStaleFqns.contains(v))
+                .sorted()
+                .toList();
+
+        if (newlyStaleFqns.isEmpty() || this.project.isDisposed()) {
+            return;
+        }
+
+        var content = newlyStaleFqns.size() == 1
+                ? "The aliased name " + newlyStaleFqns.get(0) + " no longer exists."
+                : newlyStaleFqns.size() + " aliased names no longer exist: " + String.join(", ", newlyStaleFqns);
+
+        NotificationGroupManager.getInstance()
+                .getNotificationGroup("PHP Aliases")
+                .createNotification("Stale PHP alias mappings", content, NotificationType.WARNING)
+                .addAction(NotificationAction.createSimple(
+                        "Open alias settings",
+                        () -> ShowSettingsUtil.getInstance().showSettingsDialog(this.project, SettingsConfigurable.class)
+                ))
+                .notify(this.project);
+    }
+
+    @Override
+    public void dispose() {
+    }
+
+    public static final class StartupActivity
+            implements ProjectActivity {
+        @Override
+        public @Nullable Object execute(
+                @NotNull Project project,
+                @NotNull Continuation<? super Unit> continuation
+        ) {
+            project.getService(StaleMappingDetector.class).scheduleCheck();
+
+            return null;
+        }
+    }
+}
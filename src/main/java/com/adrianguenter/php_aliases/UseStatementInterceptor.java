@@ -1,39 +1,54 @@
 package com.adrianguenter.php_aliases;
 
-import com.adrianguenter.lib.AutoCompletionDataProvider;
-import com.adrianguenter.lib.FqnType;
-import com.intellij.openapi.application.ApplicationManager;
+import com.adrianguenter.lib.Metrics;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.startup.ProjectActivity;
-import com.intellij.openapi.util.Disposer;
 import com.intellij.psi.*;
-import com.intellij.psi.search.LocalSearchScope;
-import com.intellij.psi.search.searches.ReferencesSearch;
-import com.jetbrains.php.PhpIndex;
-import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
-import com.jetbrains.php.lang.psi.elements.ClassReference;
-import com.jetbrains.php.lang.psi.elements.PhpUse;
+import com.intellij.util.ui.update.MergingUpdateQueue;
+import com.intellij.util.ui.update.Update;
 import com.jetbrains.php.lang.psi.elements.PhpUseList;
 import kotlin.Unit;
 import kotlin.coroutines.Continuation;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
 
-import java.util.Objects;
+import java.util.*;
 
-public final class UseStatementInterceptor {
+@Service(Service.Level.PROJECT)
+public final class UseStatementInterceptor
+        implements Disposable {
 
+    // Use lists added within this window are rewritten together
+    private static final int REWRITE_DELAY_MS = 100;
+
+    private final Project project;
     private final Settings settingsService;
-    private final AutoCompletionDataProvider autocompletionDataProvider;
+    private final AliasRewriter aliasRewriter;
+    private final Metrics metrics;
+    private final MergingUpdateQueue rewriteQueue;
+    private final Map<PsiFile, Set<PhpUseList>> pendingUseLists = new HashMap<>();
+    private boolean isFlushWhenSmartScheduled;
 
     public UseStatementInterceptor(
             Project project
     ) {
+        this.project = project;
         this.settingsService = project.getService(Settings.class);
-        this.autocompletionDataProvider = project.getService(AutoCompletionDataProvider.class);
+        this.aliasRewriter = new AliasRewriter(project);
+        this.metrics = project.getService(Metrics.class);
 
-        var disposable = Disposer.newDisposable("PhpAliasesPluginTreeListener");
+        this.rewriteQueue = new MergingUpdateQueue(
+                "PhpAliasesUseStatementRewrite",
+                REWRITE_DELAY_MS,
+                true,
+                MergingUpdateQueue.ANY_COMPONENT,
+                this
+        );
 
         PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
             @Override
@@ -41,66 +56,127 @@ public final class UseStatementInterceptor {
                 PsiElement element = event.getChild();
 
                 if (element instanceof PhpUseList) {
-                    UseStatementInterceptor.this.handleUseStatement((PhpUseList) element, project);
+                    var metrics = UseStatementInterceptor.this.metrics;
+                    var startNanos = System.nanoTime();
+
+                    UseStatementInterceptor.this.enqueueUseStatement((PhpUseList) element);
+                    metrics.recordSince("interceptor.childAdded", startNanos);
                 }
             }
-        }, disposable);
+        }, this);
     }
 
-    private void handleUseStatement(
-            PhpUseList useList,
-            Project project
+    /// The queue runs updates immediately in unit test mode; tests timing the merged path switch that off
+    @TestOnly
+    void setRewriteQueuePassThrough(boolean isPassThrough) {
+        this.rewriteQueue.setPassThrough(isPassThrough);
+    }
+
+    /// Runs the queued rewrites now instead of after the merge delay
+    @TestOnly
+    void flushQueuedRewrites() {
+        this.rewriteQueue.flush();
+    }
+
+    private void enqueueUseStatement(
+            PhpUseList useList
     ) {
-        var aliasMappings = Objects.requireNonNull(this.settingsService.getState()).aliasMappings;
+        var file = useList.getContainingFile();
+        if (file == null || !file.isPhysical() || !this.hasMappedDeclaration(useList)) {
+            return;
+        }
 
-        for (var useStatement : useList.getDeclarations()) {
-            String fqn = useStatement.getFQN();
+        synchronized (this.pendingUseLists) {
+            this.pendingUseLists.computeIfAbsent(file, k -> new LinkedHashSet<>()).add(useList);
+        }
+
+        // Updates for the same file merge, so a burst of imports is flushed once
+        this.rewriteQueue.queue(Update.create(file, () -> this.flushUseStatements(file)));
+    }
+
+    private void flushUseStatements(
+            PsiFile file
+    ) {
+        this.flushUseStatements(List.of(file));
+    }
 
-            for (var aliasMapping : aliasMappings) {
-                if (!aliasMapping.fullyQualifiedName.equals(fqn)) {
-                    continue;
+    private void flushUseStatements(
+            Collection<PsiFile> files
+    ) {
+        if (DumbService.isDumb(this.project)) {
+            // Rewrites need the index; keep them pending until indexing is done
+            this.scheduleFlushWhenSmart();
+            return;
+        }
+
+        var useListsByFile = new LinkedHashMap<PsiFile, Set<PhpUseList>>();
+        synchronized (this.pendingUseLists) {
+            for (var file : files) {
+                var useLists = this.pendingUseLists.remove(file);
+                if (useLists != null && file.isValid()) {
+                    useListsByFile.put(file, useLists);
                 }
+            }
+        }
+
+        if (useListsByFile.isEmpty()) {
+            return;
+        }
 
-                ApplicationManager.getApplication().invokeLater(() -> {
-                    WriteCommandAction.runWriteCommandAction(project, () -> {
-                        var autoCompletionData = this.autocompletionDataProvider.forFqn(fqn).orElseThrow();
+        var aliasMappingsByFqn = this.settingsService.getSnapshot().aliasMappingsByFqn();
+        var startNanos = System.nanoTime();
 
-                        if (autoCompletionData.type() == FqnType.Namespace) {
-                            return;
-                        }
+        WriteCommandAction.runWriteCommandAction(
+                this.project,
+                "Apply PHP Aliases",
+                null,
+                () -> useListsByFile.forEach((file, useLists) -> this.aliasRewriter.rewrite(file, useLists, aliasMappingsByFqn)),
+                useListsByFile.keySet().toArray(PsiFile.EMPTY_ARRAY)
+        );
 
-                        PsiElement fqnPsi = switch (autoCompletionData.type()) {
-//                            case Namespace -> PhpIndex.getInstance(project).getNamespacesByName(fqn).iterator().next();
-                            case Class, Enum, Exception ->
-                                    PhpIndex.getInstance(project).getClassesByFQN(fqn).iterator().next();
-                            case Interface -> PhpIndex.getInstance(project).getInterfacesByFQN(fqn).iterator().next();
-                            case Trait -> PhpIndex.getInstance(project).getTraitsByFQN(fqn).iterator().next();
-                            case Namespace -> throw new RuntimeException("Invalid type");
-                        };
+        this.metrics.recordSince("interceptor.rewrite", startNanos);
+    }
 
-                        var references = ReferencesSearch
-                                .search(fqnPsi, new LocalSearchScope(useList.getContainingFile()))
-                                .findAll();
+    private void scheduleFlushWhenSmart() {
+        synchronized (this.pendingUseLists) {
+            if (this.isFlushWhenSmartScheduled) {
+                return;
+            }
 
-                        var aliasReference = PhpPsiElementFactory.createClassReference(project, aliasMapping.alias);
+            this.isFlushWhenSmartScheduled = true;
+        }
 
-                        for (PsiReference reference : references) {
-                            if (!(reference instanceof ClassReference fqnReference)
-                                    || fqnReference.getParent() instanceof PhpUse) {
-                                continue;
-                            }
+        DumbService.getInstance(this.project).runWhenSmart(() -> {
+            List<PsiFile> files;
+            synchronized (this.pendingUseLists) {
+                this.isFlushWhenSmartScheduled = false;
+                files = new ArrayList<>(this.pendingUseLists.keySet());
+            }
 
-                            fqnReference.replace(aliasReference);
-                        }
+            // Everything parked during indexing is rewritten in a single command
+            this.flushUseStatements(files);
+        });
+    }
 
-                        var aliasUseList = PhpPsiElementFactory.createUseStatement(project, fqn, aliasMapping.alias);
-                        useList.replace(aliasUseList);
-                    });
-                });
+    private boolean hasMappedDeclaration(
+            PhpUseList useList
+    ) {
+        var aliasMappingsByFqn = this.settingsService.getSnapshot().aliasMappingsByFqn();
+        if (aliasMappingsByFqn.isEmpty() || !AliasRewriter.isRewritable(useList)) {
+            return false;
+        }
 
-                break;
+        for (var useStatement : useList.getDeclarations()) {
+            if (AliasRewriter.findAliasMapping(useStatement, aliasMappingsByFqn) != null) {
+                return true;
             }
         }
+
+        return false;
+    }
+
+    @Override
+    public void dispose() {
     }
 
     public static final class StartupActivity
@@ -110,7 +186,7 @@ public final class UseStatementInterceptor {
                 @NotNull Project project,
                 @NotNull Continuation<? super Unit> continuation
         ) {
-            new UseStatementInterceptor(project);
+            project.getService(UseStatementInterceptor.class);
 
             return null;
         }
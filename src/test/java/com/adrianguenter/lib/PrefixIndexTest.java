@@ -0,0 +1,91 @@
+package com.adrianguenter.lib;
+
+import junit.framework.TestCase;
+
+import java.util.*;
+
+public class PrefixIndexTest
+        extends TestCase {
+
+    /// Compared by identity, like the mappings the index holds
+    private static final class Item {
+        private final String name;
+        private final List<String> keys;
+
+        Item(String name, String... keys) {
+            this.name = name;
+            this.keys = List.of(keys);
+        }
+
+        @Override
+        public String toString() {
+            return this.name;
+        }
+    }
+
+    private static final List<String> PREFIXES = List.of("", "a", "al", "alpha", "Alpha", "b", "be", "beta", "g", "gamma", "s", "shared", "z");
+
+    public void testFindsKeysByCaseInsensitivePrefix() {
+        var alpha = new Item("alpha", "Alpha", "Shared");
+        var beta = new Item("beta", "Beta");
+        var index = PrefixIndex.build(List.of(alpha, beta), v -> v.keys);
+
+        assertEquals(List.of(alpha), List.copyOf(index.find("ALP")));
+        assertEquals(List.of(alpha, beta), List.copyOf(index.find("")));
+        assertEquals(List.of(), List.copyOf(index.find("gamma")));
+    }
+
+    public void testAddedItemsMatchRebuild() {
+        var alpha = new Item("alpha", "Alpha", "Shared");
+        var beta = new Item("beta", "Beta", "Shared");
+        var gamma = new Item("gamma", "Gamma", "Shared", "Alpha");
+
+        var index = PrefixIndex.build(List.of(alpha), (Item v) -> v.keys)
+                .withChanges(List.of(), List.of(beta, gamma), v -> v.keys);
+
+        assertSameFinds(PrefixIndex.build(List.of(alpha, beta, gamma), v -> v.keys), index);
+    }
+
+    public void testRemovedItemsMatchRebuild() {
+        var alpha = new Item("alpha", "Alpha", "Shared");
+        var beta = new Item("beta", "Beta", "Shared");
+        var gamma = new Item("gamma", "Gamma", "Shared");
+
+        var index = PrefixIndex.build(List.of(alpha, beta, gamma), (Item v) -> v.keys)
+                .withChanges(List.of(beta), List.of(), v -> v.keys);
+
+        assertSameFinds(PrefixIndex.build(List.of(alpha, gamma), v -> v.keys), index);
+    }
+
+    public void testDuplicateKeysMatchRebuild() {
+        // Same keys, different items: only the removed instance may go, and ties keep insertion order
+        var first = new Item("first", "Alpha", "Shared");
+        var second = new Item("second", "Alpha", "Shared");
+        var third = new Item("third", "alpha", "SHARED");
+        var fourth = new Item("fourth", "Alpha", "Beta");
+
+        var index = PrefixIndex.build(List.of(first, second, third), (Item v) -> v.keys)
+                .withChanges(List.of(second), List.of(fourth), v -> v.keys);
+
+        assertSameFinds(PrefixIndex.build(List.of(first, third, fourth), v -> v.keys), index);
+    }
+
+    public void testRemovingEverythingMatchesEmpty() {
+        var alpha = new Item("alpha", "Alpha");
+
+        var index = PrefixIndex.build(List.of(alpha), (Item v) -> v.keys)
+                .withChanges(List.of(alpha), List.of(), v -> v.keys);
+
+        assertSameFinds(PrefixIndex.empty(), index);
+    }
+
+    private static void assertSameFinds(
+            PrefixIndex<Item> expected,
+            PrefixIndex<Item> actual
+    ) {
+        assertEquals(expected.size(), actual.size());
+        for (var prefix : PREFIXES) {
+            assertEquals("find(\"" + prefix + "\")", List.copyOf(expected.find(prefix)), List.copyOf(actual.find(prefix)));
+        }
+    }
+}
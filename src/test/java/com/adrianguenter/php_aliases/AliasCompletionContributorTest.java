@@ -0,0 +1,42 @@
+package com.adrianguenter.php_aliases;
+
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.jetbrains.php.lang.PhpFileType;
+
+import java.util.List;
+import java.util.UUID;
+
+public class AliasCompletionContributorTest
+        extends BasePlatformTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        this.getProject().getService(Settings.class).setAliasMappings(List.of(
+                new AliasMapping(UUID.randomUUID(), "FbHelper", "\\Vendor\\Social\\Helper", true),
+                new AliasMapping(UUID.randomUUID(), "FooBar", "\\Vendor\\Foo\\Bar", true)
+        ));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            this.getProject().getService(Settings.class).setAliasMappings(List.of());
+        } catch (Throwable e) {
+            this.addSuppressedException(e);
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    /// "FB" is a literal prefix of FbHelper and the CamelHumps of FooBar; both have to be offered
+    public void testOffersCamelHumpsMatchesAlongsideLiteralMatches() {
+        this.myFixture.configureByText(PhpFileType.INSTANCE, "<?php\nnamespace App;\n\n$value = new FB<caret>;\n");
+        this.myFixture.completeBasic();
+
+        var lookupStrings = this.myFixture.getLookupElementStrings();
+        assertNotNull("Expected a completion popup", lookupStrings);
+        assertContainsElements(lookupStrings, "FbHelper", "FooBar");
+    }
+}
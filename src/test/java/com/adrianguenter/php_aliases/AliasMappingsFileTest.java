@@ -0,0 +1,85 @@
+package com.adrianguenter.php_aliases;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+public class AliasMappingsFileTest
+        extends TestCase {
+
+    private static final UUID UUID_1 = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
+    public void testReadsQuotedFields() throws IOException {
+        var entries = readCsv("alias,fqn,uuid\n\"Foo\",\"\\Vendor\\Foo\",\"" + UUID_1 + "\"\n");
+
+        assertEquals(List.of(new AliasMappingsFile.Entry("Foo", "\\Vendor\\Foo", UUID_1, 2)), entries);
+    }
+
+    public void testReadsEmbeddedCommasAndQuotes() throws IOException {
+        var entries = readCsv("alias,fqn\n\"Foo, \"\"Bar\"\"\",\\Vendor\\Foo\n");
+
+        assertEquals(List.of(new AliasMappingsFile.Entry("Foo, \"Bar\"", "\\Vendor\\Foo", null, 2)), entries);
+    }
+
+    public void testReadsCrlfLineEndings() throws IOException {
+        var entries = readCsv("alias,fqn,uuid\r\nFoo,\\Vendor\\Foo," + UUID_1 + "\r\nBar,\\Vendor\\Bar\r\n");
+
+        assertEquals(List.of(
+                new AliasMappingsFile.Entry("Foo", "\\Vendor\\Foo", UUID_1, 2),
+                new AliasMappingsFile.Entry("Bar", "\\Vendor\\Bar", null, 3)
+        ), entries);
+    }
+
+    public void testReadsMissingColumnsAsEmpty() throws IOException {
+        var entries = readCsv("alias,fqn,uuid\nFoo\nBar,\\Vendor\\Bar,\n");
+
+        assertEquals(List.of(
+                new AliasMappingsFile.Entry("Foo", "", null, 2),
+                new AliasMappingsFile.Entry("Bar", "\\Vendor\\Bar", null, 3)
+        ), entries);
+    }
+
+    public void testReadsHeaderOnlyFileAsEmpty() throws IOException {
+        assertEquals(List.of(), readCsv("alias,fqn,uuid\n"));
+        assertEquals(List.of(), readCsv("alias,fqn,uuid"));
+    }
+
+    public void testRejectsUnterminatedQuote() {
+        try {
+            readCsv("alias,fqn\n\"Foo,\\Vendor\\Foo\n");
+            fail("Expected an unterminated quote to be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("line 2"));
+        }
+    }
+
+    public void testReadsWhatItWrites() throws IOException {
+        var aliasMappings = List.of(
+                new AliasMapping(UUID_1, "Foo, \"Bar\"", "\\Vendor\\Foo", true),
+                new AliasMapping(UUID.randomUUID(), "Baz", "\\Vendor\\Baz", true)
+        );
+        var writer = new StringWriter();
+        AliasMappingsFile.write(writer, AliasMappingsFile.Format.Csv, aliasMappings);
+
+        var entries = readCsv(writer.toString());
+
+        assertEquals(writer.toString(), aliasMappings.size(), entries.size());
+        for (int i = 0; i < aliasMappings.size(); i++) {
+            assertEquals(aliasMappings.get(i).alias, entries.get(i).alias());
+            assertEquals(aliasMappings.get(i).fullyQualifiedName, entries.get(i).fqn());
+            assertEquals(aliasMappings.get(i).uuid, entries.get(i).uuid());
+        }
+    }
+
+    private static List<AliasMappingsFile.Entry> readCsv(String content) throws IOException {
+        var entries = new ArrayList<AliasMappingsFile.Entry>();
+        AliasMappingsFile.read(new StringReader(content), AliasMappingsFile.Format.Csv, entries::add);
+
+        return entries;
+    }
+}
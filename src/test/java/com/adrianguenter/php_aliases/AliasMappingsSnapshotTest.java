@@ -0,0 +1,112 @@
+package com.adrianguenter.php_aliases;
+
+import junit.framework.TestCase;
+
+import java.util.*;
+
+public class AliasMappingsSnapshotTest
+        extends TestCase {
+
+    private static final List<String> PREFIXES = List.of("", "f", "foo", "b", "bar", "baz", "v", "vendor", "vendor\\", "vendor\\f", "other", "x");
+
+    public void testAddedMappingsMatchRebuild() {
+        var foo = mapping("Foo", "\\Vendor\\Foo");
+        var bar = mapping("Bar", "\\Vendor\\Bar");
+        var baz = mapping("Baz", "\\Other\\Baz");
+
+        var snapshot = AliasMappingsSnapshot.of(List.of(foo))
+                .withChanges(List.of(), List.of(bar, baz));
+
+        assertSameAnswers(AliasMappingsSnapshot.of(List.of(foo, bar, baz)), snapshot);
+    }
+
+    public void testRemovedMappingsMatchRebuild() {
+        var foo = mapping("Foo", "\\Vendor\\Foo");
+        var bar = mapping("Bar", "\\Vendor\\Bar");
+        var baz = mapping("Baz", "\\Other\\Baz");
+
+        var snapshot = AliasMappingsSnapshot.of(List.of(foo, bar, baz))
+                .withChanges(List.of(bar), List.of());
+
+        assertSameAnswers(AliasMappingsSnapshot.of(List.of(foo, baz)), snapshot);
+    }
+
+    public void testDuplicateKeysMatchRebuild() {
+        // The same alias and FQN in several mappings, one of them twice with the same UUID
+        var foo = mapping("Foo", "\\Vendor\\Foo");
+        var fooAgain = mapping("Foo", "\\Vendor\\Foo");
+        var fooForBar = mapping("Foo", "\\Vendor\\Bar");
+        var bar = mapping("Bar", "\\Vendor\\Foo");
+
+        var snapshot = AliasMappingsSnapshot.of(List.of(foo, fooAgain, fooForBar, fooAgain))
+                .withChanges(List.of(foo, fooAgain), List.of(bar));
+
+        assertSameAnswers(AliasMappingsSnapshot.of(List.of(fooForBar, fooAgain, bar)), snapshot);
+        assertEquals("\\Vendor\\Bar", snapshot.aliasMappingsByAlias().get("Foo").fullyQualifiedName);
+    }
+
+    public void testRenameMatchesRebuild() {
+        var foo = mapping("Foo", "\\Vendor\\Foo");
+        var bar = mapping("Bar", "\\Vendor\\Bar");
+        var renamedFoo = new AliasMapping(foo.uuid, "VendorFoo", foo.fullyQualifiedName, true);
+
+        var snapshot = AliasMappingsSnapshot.of(List.of(foo, bar))
+                .withChanges(List.of(foo), List.of(renamedFoo));
+
+        assertSameAnswers(AliasMappingsSnapshot.of(List.of(bar, renamedFoo)), snapshot);
+    }
+
+    public void testRemovingEverythingMatchesEmpty() {
+        var foo = mapping("Foo", "\\Vendor\\Foo");
+
+        var snapshot = AliasMappingsSnapshot.of(List.of(foo))
+                .withChanges(List.of(foo), List.of());
+
+        assertSameAnswers(AliasMappingsSnapshot.EMPTY, snapshot);
+    }
+
+    private static AliasMapping mapping(
+            String alias,
+            String fqn
+    ) {
+        return new AliasMapping(UUID.randomUUID(), alias, fqn, true);
+    }
+
+    /// Snapshots hold detached copies, so mappings are compared by value
+    private static List<String> describe(Collection<AliasMapping> aliasMappings) {
+        return aliasMappings.stream()
+                .map(v -> v.uuid + " " + v.alias + " " + v.fullyQualifiedName)
+                .toList();
+    }
+
+    private static void assertSameAnswers(
+            AliasMappingsSnapshot expected,
+            AliasMappingsSnapshot actual
+    ) {
+        assertEquals(describe(expected.aliasMappings()), describe(actual.aliasMappings()));
+        assertEquals(expected.aliasMappingsByAlias().keySet(), actual.aliasMappingsByAlias().keySet());
+        for (var alias : expected.aliasMappingsByAlias().keySet()) {
+            assertEquals(
+                    describe(List.of(expected.aliasMappingsByAlias().get(alias))),
+                    describe(List.of(actual.aliasMappingsByAlias().get(alias)))
+            );
+        }
+
+        assertEquals(expected.aliasMappingsByFqn().keySet(), actual.aliasMappingsByFqn().keySet());
+        for (var fqn : expected.aliasMappingsByFqn().keySet()) {
+            assertEquals(
+                    describe(List.of(expected.aliasMappingsByFqn().get(fqn))),
+                    describe(List.of(actual.aliasMappingsByFqn().get(fqn)))
+            );
+        }
+
+        assertEquals(expected.prefixIndex().size(), actual.prefixIndex().size());
+        for (var prefix : PREFIXES) {
+            assertEquals(
+                    "find(\"" + prefix + "\")",
+                    describe(expected.prefixIndex().find(prefix)),
+                    describe(actual.prefixIndex().find(prefix))
+            );
+        }
+    }
+}
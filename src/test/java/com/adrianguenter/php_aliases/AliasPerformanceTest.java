@@ -0,0 +1,353 @@
+package com.adrianguenter.php_aliases;
+
+import com.adrianguenter.lib.AutoCompletionDataProvider;
+import com.adrianguenter.lib.Metrics;
+import com.intellij.codeInsight.lookup.Lookup;
+import com.intellij.codeInsight.lookup.LookupManager;
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.search.LocalSearchScope;
+import com.intellij.psi.search.searches.ReferencesSearch;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.jetbrains.php.PhpIndex;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.PhpPsiElementFactory;
+import com.jetbrains.php.lang.psi.elements.ClassReference;
+import com.jetbrains.php.lang.psi.elements.PhpNamespace;
+import com.jetbrains.php.lang.psi.elements.PhpUse;
+import com.jetbrains.php.lang.psi.elements.PhpUseList;
+
+import java.io.IOException;
+import java.util.*;
+
+/// Times completion, insertion and interceptor rewrites against a synthetic project and fails when a path exceeds
+/// its budget in `performance-thresholds.properties`
+public class AliasPerformanceTest
+        extends BasePlatformTestCase {
+
+    private static final int NAMESPACE_COUNT = 200;
+    private static final int CLASS_COUNT = 4000;
+    private static final int REWRITTEN_IMPORT_COUNT = 50;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 30;
+
+    private Properties thresholds;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        this.thresholds = new Properties();
+        try (var stream = this.getClass().getResourceAsStream("/performance-thresholds.properties")) {
+            if (stream == null) {
+                throw new IOException("performance-thresholds.properties is missing");
+            }
+
+            this.thresholds.load(stream);
+        }
+
+        this.generateProject();
+        this.getProject().getService(Metrics.class).reset();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            this.getProject().getService(Settings.class).setAliasMappings(List.of());
+        } catch (Throwable e) {
+            this.addSuppressedException(e);
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    public void testCompletionLatency() {
+        // Broad prefix; matches a large share of the mappings
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+            if (i == WARMUP_ITERATIONS) {
+                this.getProject().getService(Metrics.class).reset();
+            }
+
+            this.myFixture.configureByText(PhpFileType.INSTANCE, "<?php\nnamespace App;\n\n$value = new Alias1<caret>;\n");
+            var lookupElements = this.myFixture.completeBasic();
+            assertNotNull("Expected a completion popup", lookupElements);
+            LookupManager.getInstance(this.getProject()).hideActiveLookup();
+        }
+
+        this.assertWithinThresholds("completion", "completion.addCompletions");
+    }
+
+    public void testInsertionLatency() {
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+            if (i == WARMUP_ITERATIONS) {
+                this.getProject().getService(Metrics.class).reset();
+            }
+
+            var classIndex = i * 97 % CLASS_COUNT;
+            this.myFixture.configureByText(
+                    PhpFileType.INSTANCE,
+                    "<?php\nnamespace App;\n\nuse Other\\Thing;\n\n$value = new Alias" + classIndex + "<caret>;\n"
+            );
+
+            var lookupElements = this.myFixture.completeBasic();
+            if (lookupElements != null) {
+                var alias = "Alias" + classIndex;
+                var item = Arrays.stream(lookupElements)
+                        .filter(v -> alias.equals(v.getLookupString()))
+                        .findFirst()
+                        .orElseThrow(() -> new AssertionError("No lookup element for " + alias));
+
+                this.myFixture.getLookup().setCurrentItem(item);
+                this.myFixture.finishLookup(Lookup.NORMAL_SELECT_CHAR);
+            }
+
+            assertTrue(
+                    "Expected an aliased import of " + fqn(classIndex),
+                    this.myFixture.getFile().getText().contains("\\Class" + classIndex + " as Alias" + classIndex + ";")
+            );
+        }
+
+        this.assertWithinThresholds("insert", "insert.handleInsert");
+    }
+
+    /// Times a real edit adding the imports: the interceptor's PSI listener, its merged queue and the write command it
+    /// flushes
+    public void testRewriteLatency() {
+        var interceptor = this.getProject().getService(UseStatementInterceptor.class);
+        var metrics = this.getProject().getService(Metrics.class);
+        var durationsNanos = new ArrayList<Long>();
+
+        // Without this, every added use list is rewritten on its own inside the PSI event
+        interceptor.setRewriteQueuePassThrough(false);
+        metrics.reset();
+        try {
+            for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+                var file = this.myFixture.configureByText(PhpFileType.INSTANCE, "<?php\nnamespace App;\n\n" + createUsages(i));
+                var statements = Objects.requireNonNull(PsiTreeUtil.findChildOfType(file, PhpNamespace.class)).getStatements();
+                assertNotNull("Expected the namespace to have a body", statements);
+                var iteration = i;
+
+                // Added through PSI like an auto-import, so the interceptor sees each use list being added
+                var startNanos = System.nanoTime();
+                WriteCommandAction.runWriteCommandAction(this.getProject(), () -> {
+                    var anchor = statements.getFirstChild();
+                    for (var fqn : getImportedFqns(iteration)) {
+                        statements.addBefore(PhpPsiElementFactory.createUseStatement(this.getProject(), fqn, null), anchor);
+                    }
+                });
+                assertFalse("Expected the rewrite to wait in the queue", file.getText().contains(" as Alias"));
+
+                interceptor.flushQueuedRewrites();
+                if (i >= WARMUP_ITERATIONS) {
+                    durationsNanos.add(System.nanoTime() - startNanos);
+                }
+
+                var classIndex = i * REWRITTEN_IMPORT_COUNT % CLASS_COUNT;
+                assertTrue(
+                        "Expected the import of " + fqn(classIndex) + " to be aliased",
+                        file.getText().contains(" as Alias" + classIndex + ";")
+                );
+            }
+        } finally {
+            interceptor.setRewriteQueuePassThrough(true);
+        }
+
+        var rewriteHistogram = metrics.getHistograms().get("interceptor.rewrite");
+        assertNotNull("The interceptor never rewrote anything", rewriteHistogram);
+        assertEquals("Expected one merged rewrite per file", WARMUP_ITERATIONS + MEASURED_ITERATIONS, rewriteHistogram.count());
+
+        Collections.sort(durationsNanos);
+        var meanMillis = durationsNanos.stream().mapToLong(Long::longValue).average().orElse(0) / 1_000_000;
+        var p95Millis = durationsNanos.get((int) Math.ceil(durationsNanos.size() * 0.95) - 1) / 1_000_000.0;
+
+        this.assertWithinThreshold("rewrite.mean", meanMillis);
+        this.assertWithinThreshold("rewrite.p95", p95Millis);
+    }
+
+    /// The single-pass rewrite against the per-FQN reference search it replaced, on the same files. With one search
+    /// per mapped import the old rewrite is far slower, so the medians are compared with a wide margin that scheduler
+    /// noise on a shared CI machine cannot close
+    public void testSinglePassRewriteOutperformsPerFqnSearch() {
+        var aliasRewriter = new AliasRewriter(this.getProject());
+        var aliasMappingsByFqn = this.getProject().getService(Settings.class).getSnapshot().aliasMappingsByFqn();
+        var singlePassDurationsNanos = new ArrayList<Long>();
+        var perFqnDurationsNanos = new ArrayList<Long>();
+
+        for (int i = 0; i < WARMUP_ITERATIONS + MEASURED_ITERATIONS; i++) {
+            var singlePassFile = this.myFixture.configureByText(PhpFileType.INSTANCE, createImportingFile(i));
+            var singlePassUseLists = PsiTreeUtil.findChildrenOfType(singlePassFile, PhpUseList.class);
+            var singlePassStartNanos = System.nanoTime();
+            WriteCommandAction.runWriteCommandAction(
+                    this.getProject(),
+                    () -> aliasRewriter.rewrite(singlePassFile, singlePassUseLists, aliasMappingsByFqn)
+            );
+            var singlePassDurationNanos = System.nanoTime() - singlePassStartNanos;
+            var singlePassText = singlePassFile.getText();
+
+            var perFqnFile = this.myFixture.configureByText(PhpFileType.INSTANCE, createImportingFile(i));
+            var perFqnUseLists = PsiTreeUtil.findChildrenOfType(perFqnFile, PhpUseList.class);
+            var perFqnStartNanos = System.nanoTime();
+            WriteCommandAction.runWriteCommandAction(
+                    this.getProject(),
+                    () -> this.rewritePerFqn(perFqnUseLists, aliasMappingsByFqn)
+            );
+            var perFqnDurationNanos = System.nanoTime() - perFqnStartNanos;
+
+            var classIndex = i * REWRITTEN_IMPORT_COUNT % CLASS_COUNT;
+            assertTrue("Expected the single-pass rewrite to alias " + fqn(classIndex), singlePassText.contains(" as Alias" + classIndex + ";"));
+            assertTrue("Expected the per-FQN rewrite to alias " + fqn(classIndex), perFqnFile.getText().contains(" as Alias" + classIndex + ";"));
+
+            if (i >= WARMUP_ITERATIONS) {
+                singlePassDurationsNanos.add(singlePassDurationNanos);
+                perFqnDurationsNanos.add(perFqnDurationNanos);
+            }
+        }
+
+        var singlePassMedianMillis = median(singlePassDurationsNanos) / 1_000_000.0;
+        var perFqnMedianMillis = median(perFqnDurationsNanos) / 1_000_000.0;
+
+        assertTrue(
+                String.format(Locale.ROOT, "Single-pass rewrite took %.3f ms (median), the per-FQN search %.3f ms", singlePassMedianMillis, perFqnMedianMillis),
+                singlePassMedianMillis * 2 < perFqnMedianMillis
+        );
+    }
+
+    /// The rewrite as it was before AliasRewriter: per mapped import, a reference search over the whole file
+    private void rewritePerFqn(
+            Collection<PhpUseList> useLists,
+            Map<String, AliasMapping> aliasMappingsByFqn
+    ) {
+        var project = this.getProject();
+        var phpIndex = PhpIndex.getInstance(project);
+        var dataProvider = project.getService(AutoCompletionDataProvider.class);
+
+        for (var useList : useLists) {
+            for (var useStatement : useList.getDeclarations()) {
+                if (!useList.isValid()) {
+                    break;
+                }
+
+                var fqn = useStatement.getFQN();
+                var aliasMapping = aliasMappingsByFqn.get(fqn);
+                if (aliasMapping == null || aliasMapping.alias.equals(useStatement.getAliasName())) {
+                    continue;
+                }
+
+                var type = dataProvider.forFqn(fqn).orElseThrow().type();
+                PsiElement fqnPsi = switch (type) {
+                    case Class, Enum, Exception -> phpIndex.getClassesByFQN(fqn).iterator().next();
+                    case Interface -> phpIndex.getInterfacesByFQN(fqn).iterator().next();
+                    case Trait -> phpIndex.getTraitsByFQN(fqn).iterator().next();
+                    case Namespace -> null;
+                };
+                if (fqnPsi == null) {
+                    continue;
+                }
+
+                var file = useList.getContainingFile();
+                var aliasReference = PhpPsiElementFactory.createClassReference(project, aliasMapping.alias);
+                for (var reference : ReferencesSearch.search(fqnPsi, new LocalSearchScope(file)).findAll()) {
+                    if (reference instanceof ClassReference fqnReference && !(fqnReference.getParent() instanceof PhpUse)) {
+                        fqnReference.replace(aliasReference);
+                    }
+                }
+
+                useList.replace(PhpPsiElementFactory.createUseStatement(project, fqn, aliasMapping.alias));
+            }
+        }
+    }
+
+    private void assertWithinThresholds(
+            String thresholdPrefix,
+            String metricName
+    ) {
+        var histogram = this.getProject().getService(Metrics.class).getHistograms().get(metricName);
+        assertNotNull("Nothing was recorded for " + metricName, histogram);
+        assertTrue(metricName + " was recorded only " + histogram.count() + " times", histogram.count() >= MEASURED_ITERATIONS);
+
+        this.assertWithinThreshold(thresholdPrefix + ".mean", histogram.meanMillis());
+        this.assertWithinThreshold(thresholdPrefix + ".p95", histogram.percentileMillis(95));
+    }
+
+    private void assertWithinThreshold(
+            String name,
+            double actualMillis
+    ) {
+        var thresholdMillis = Double.parseDouble(Objects.requireNonNull(this.thresholds.getProperty(name), name));
+
+        assertTrue(
+                String.format(Locale.ROOT, "%s regressed: %.3f ms exceeds the %.3f ms budget", name, actualMillis, thresholdMillis),
+                actualMillis <= thresholdMillis
+        );
+    }
+
+    /// One file per namespace, each declaring its share of the classes, plus an alias for every class and namespace
+    private void generateProject() {
+        var sourcesByNamespace = new HashMap<Integer, StringBuilder>();
+        var aliasMappings = new ArrayList<AliasMapping>(CLASS_COUNT + NAMESPACE_COUNT);
+
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            var namespaceIndex = i % NAMESPACE_COUNT;
+            sourcesByNamespace
+                    .computeIfAbsent(namespaceIndex, k -> new StringBuilder("<?php\nnamespace " + namespace(k).substring(1) + ";\n\n"))
+                    .append("class Class").append(i).append(" {}\n");
+
+            aliasMappings.add(new AliasMapping(UUID.randomUUID(), "Alias" + i, fqn(i), true));
+        }
+
+        for (int i = 0; i < NAMESPACE_COUNT; i++) {
+            aliasMappings.add(new AliasMapping(UUID.randomUUID(), "Ns" + i, namespace(i), true));
+        }
+
+        sourcesByNamespace.forEach((namespaceIndex, source) -> this.myFixture.addFileToProject(
+                "src/" + namespace(namespaceIndex).substring(1).replace('\\', '/') + ".php",
+                source.toString()
+        ));
+
+        this.getProject().getService(Settings.class).setAliasMappings(aliasMappings);
+    }
+
+    private static String createImportingFile(int iteration) {
+        var imports = new StringBuilder();
+        for (var fqn : getImportedFqns(iteration)) {
+            imports.append("use ").append(fqn.substring(1)).append(";\n");
+        }
+
+        return "<?php\nnamespace App;\n\n" + imports + "\n" + createUsages(iteration);
+    }
+
+    private static List<String> getImportedFqns(int iteration) {
+        var fqns = new ArrayList<String>(REWRITTEN_IMPORT_COUNT);
+        for (int i = 0; i < REWRITTEN_IMPORT_COUNT; i++) {
+            fqns.add(fqn((iteration * REWRITTEN_IMPORT_COUNT + i) % CLASS_COUNT));
+        }
+
+        return fqns;
+    }
+
+    private static String createUsages(int iteration) {
+        var usages = new StringBuilder();
+        for (int i = 0; i < REWRITTEN_IMPORT_COUNT; i++) {
+            var classIndex = (iteration * REWRITTEN_IMPORT_COUNT + i) % CLASS_COUNT;
+            usages.append("$value").append(i).append(" = new Class").append(classIndex).append("();\n");
+        }
+
+        return usages.toString();
+    }
+
+    private static String namespace(int namespaceIndex) {
+        return "\\Vendor" + (namespaceIndex / 25) + "\\Module" + (namespaceIndex % 25);
+    }
+
+    private static long median(List<Long> values) {
+        var sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static String fqn(int classIndex) {
+        return namespace(classIndex % NAMESPACE_COUNT) + "\\Class" + classIndex;
+    }
+}
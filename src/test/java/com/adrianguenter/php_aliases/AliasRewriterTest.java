@@ -0,0 +1,72 @@
+package com.adrianguenter.php_aliases;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.jetbrains.php.lang.PhpFileType;
+import com.jetbrains.php.lang.psi.elements.PhpUseList;
+
+import java.util.List;
+import java.util.UUID;
+
+public class AliasRewriterTest
+        extends BasePlatformTestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        this.myFixture.addFileToProject(
+                "src/Vendor/Pkg.php",
+                "<?php\nnamespace Vendor\\Pkg;\n\nclass Foo {}\nclass Bar {}\n"
+        );
+        this.getProject().getService(Settings.class).setAliasMappings(List.of(
+                new AliasMapping(UUID.randomUUID(), "PkgFoo", "\\Vendor\\Pkg\\Foo", true)
+        ));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            this.getProject().getService(Settings.class).setAliasMappings(List.of());
+        } catch (Throwable e) {
+            this.addSuppressedException(e);
+        } finally {
+            super.tearDown();
+        }
+    }
+
+    public void testRewritesSingleImportAndReferences() {
+        var text = this.rewrite("<?php\nnamespace App;\n\nuse Vendor\\Pkg\\Foo;\n\n$value = new Foo();\n");
+
+        assertTrue(text, text.contains("Foo as PkgFoo;"));
+        assertTrue(text, text.contains("new PkgFoo()"));
+    }
+
+    public void testKeepsMultiDeclarationUseList() {
+        var source = "<?php\nnamespace App;\n\nuse Vendor\\Pkg\\Foo, Vendor\\Pkg\\Bar;\n\n$foo = new Foo();\n$bar = new Bar();\n";
+
+        assertEquals(source, this.rewrite(source));
+    }
+
+    public void testKeepsGroupUseList() {
+        var source = "<?php\nnamespace App;\n\nuse Vendor\\Pkg\\{Foo, Bar};\n\n$foo = new Foo();\n$bar = new Bar();\n";
+
+        assertEquals(source, this.rewrite(source));
+    }
+
+    private String rewrite(
+            String source
+    ) {
+        var file = this.myFixture.configureByText(PhpFileType.INSTANCE, source);
+        var useLists = PsiTreeUtil.findChildrenOfType(file, PhpUseList.class);
+        var aliasMappingsByFqn = this.getProject().getService(Settings.class).getSnapshot().aliasMappingsByFqn();
+
+        WriteCommandAction.runWriteCommandAction(
+                this.getProject(),
+                () -> new AliasRewriter(this.getProject()).rewrite(file, useLists, aliasMappingsByFqn)
+        );
+
+        return file.getText();
+    }
+}